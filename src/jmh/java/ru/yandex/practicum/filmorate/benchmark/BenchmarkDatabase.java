@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * In-memory H2 database migrated with the application's Flyway scripts and seeded with
+ * {@code likes / 10} films of 10 likes each, {@code max(1000, likes / 100)} users with 20 friend
+ * requests each (every other one approved) and one genre per film.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    static final int LIKES_PER_FILM = 10;
+    static final int FRIENDS_PER_USER = 20;
+    private static final int BATCH_SIZE = 10_000;
+
+    final JdbcTemplate jdbcTemplate;
+    final int films;
+    final int users;
+    private final HikariDataSource dataSource;
+
+    private BenchmarkDatabase(int likes) {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        films = Math.max(1, likes / LIKES_PER_FILM);
+        users = Math.max(1000, likes / 100);
+    }
+
+    static BenchmarkDatabase seed(int likes) {
+        BenchmarkDatabase database = new BenchmarkDatabase(likes);
+        database.insertUsers();
+        database.insertFilms();
+        database.insertLikes();
+        database.insertFriends();
+        return database;
+    }
+
+    private void insertUsers() {
+        batch("INSERT INTO \"users\" (\"email\", \"login\", \"name\", \"birthday\") VALUES (?, ?, ?, ?)",
+                users, (ps, i) -> {
+                    ps.setString(1, "user" + i + "@mail.ru");
+                    ps.setString(2, "user" + i);
+                    ps.setString(3, "User " + i);
+                    ps.setDate(4, Date.valueOf(LocalDate.of(1990, 1, 1).plusDays(i % 10_000)));
+                });
+    }
+
+    private void insertFilms() {
+        batch("INSERT INTO \"films\" (\"title\", \"description\", \"release_date\", \"duration\", \"rating_id\") "
+                + "VALUES (?, ?, ?, ?, ?)", films, (ps, i) -> {
+            ps.setString(1, "Film " + i);
+            ps.setString(2, "Description of film " + i);
+            ps.setDate(3, Date.valueOf(LocalDate.of(1960, 1, 1).plusDays(i % 20_000)));
+            ps.setInt(4, 90 + i % 60);
+            ps.setInt(5, i % 5 + 1);
+        });
+        batch("INSERT INTO \"film_genres\" (\"film_id\", \"genre_id\") VALUES (?, ?)", films, (ps, i) -> {
+            ps.setInt(1, i + 1);
+            ps.setInt(2, i % 6 + 1);
+        });
+    }
+
+    private void insertLikes() {
+        int step = users / LIKES_PER_FILM;
+        batch("INSERT INTO \"likes\" (\"film_id\", \"user_id\", \"created_at\") VALUES (?, ?, CURRENT_TIMESTAMP())",
+                films * LIKES_PER_FILM, (ps, i) -> {
+                    int film = i / LIKES_PER_FILM;
+                    ps.setInt(1, film + 1);
+                    ps.setInt(2, (film + (i % LIKES_PER_FILM) * step) % users + 1);
+                });
+        jdbcTemplate.update("update \"films\" f set \"like_count\" = "
+                + "(select count(*) from \"likes\" l where l.\"film_id\" = f.\"id\")");
+    }
+
+    private void insertFriends() {
+        batch("INSERT INTO \"friends\" (\"user_id\", \"friend_id\", \"request_status\", \"created_at\") "
+                + "VALUES (?, ?, ?, CURRENT_TIMESTAMP())", users * FRIENDS_PER_USER, (ps, i) -> {
+            int user = i / FRIENDS_PER_USER;
+            int request = i % FRIENDS_PER_USER;
+            ps.setInt(1, user + 1);
+            ps.setInt(2, (user + 1 + request * 37) % users + 1);
+            ps.setBoolean(3, request % 2 == 0);
+        });
+    }
+
+    private void batch(String sql, int rows, RowSetter setter) {
+        for (int from = 0; from < rows; from += BATCH_SIZE) {
+            int offset = from;
+            int size = Math.min(BATCH_SIZE, rows - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setter.set(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private interface RowSetter {
+        void set(PreparedStatement ps, int row) throws SQLException;
+    }
+}
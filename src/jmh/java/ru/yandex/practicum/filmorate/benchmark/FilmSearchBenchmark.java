@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search over {@code films} generated films with a two-word name and a 15-word description, drawn from
+ * a 50 000-word Cyrillic vocabulary with a skewed (Zipf-like) word frequency. Queries are two words
+ * from the rarest half of the vocabulary, or two words from the 100 most frequent ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilmSearchBenchmark {
+    private static final int VOCABULARY = 50_000;
+
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private String[] words;
+    private FilmSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(i);
+        }
+        Random random = new Random(42);
+        index = new FilmSearchIndex();
+        index.rebuild(consumer -> {
+            for (int id = 1; id <= films; id++) {
+                Film film = new Film();
+                film.setId(id);
+                film.setName(text(random, 2));
+                film.setDescription(text(random, 15));
+                consumer.accept(film);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Integer> rareTerms() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.search(words[VOCABULARY / 2 + random.nextInt(VOCABULARY / 2)] + " "
+                + words[VOCABULARY / 2 + random.nextInt(VOCABULARY / 2)], 10);
+    }
+
+    @Benchmark
+    public List<Integer> commonTerms() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.search(words[random.nextInt(100)] + " " + words[random.nextInt(100)], 10);
+    }
+
+    private String text(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            double r = random.nextDouble();
+            text.append(words[(int) (VOCABULARY * r * r * r)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    // Bijective base-32 over Cyrillic letters, so every index is a distinct word.
+    private static String word(int index) {
+        StringBuilder word = new StringBuilder();
+        int n = index + 1;
+        while (n > 0) {
+            n--;
+            word.append((char) ('а' + n % 32));
+            n /= 32;
+        }
+        return word.append("ка").toString();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FilmStorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int likes;
+
+    private BenchmarkDatabase database;
+    private FilmDbStorage filmStorage;
+    private int userWithoutLikes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seed(likes);
+        filmStorage = new FilmDbStorage(database.jdbcTemplate, new ReferenceDataCache(100), EntityCache.disabled());
+        User user = new User();
+        user.setEmail("bench@mail.ru");
+        user.setLogin("bench");
+        user.setName("Bench");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        userWithoutLikes = new UserDbStorage(database.jdbcTemplate, EntityCache.disabled()).addUser(user).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Film> getFilms() {
+        return filmStorage.getFilms();
+    }
+
+    @Benchmark
+    public List<FilmSummary> getFilmSummaries() {
+        return filmStorage.getFilmSummaries();
+    }
+
+    @Benchmark
+    public Film getFilm() {
+        return filmStorage.getFilm(randomFilmId());
+    }
+
+    @Benchmark
+    public boolean addAndRemoveLike() {
+        int filmId = randomFilmId();
+        filmStorage.addLike(filmId, userWithoutLikes);
+        return filmStorage.removeLike(filmId, userWithoutLikes);
+    }
+
+    private int randomFilmId() {
+        return ThreadLocalRandom.current().nextInt(database.films) + 1;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend suggestions for a user with {@code friends} friends, in a graph of 100 000 users
+ * with 50 requests each on average, half of them approved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FriendSuggestionsBenchmark {
+    private static final int USERS = 100_000;
+    private static final int REQUESTS_PER_USER = 50;
+
+    @Param({"100", "1000", "5000"})
+    private int friends;
+
+    private FriendGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        graph = new FriendGraph();
+        graph.rebuild(consumer -> {
+            for (int userId = 2; userId <= USERS; userId++) {
+                for (int i = 0; i < REQUESTS_PER_USER; i++) {
+                    int friendId = random.nextInt(USERS - 1) + 2;
+                    if (friendId != userId) {
+                        consumer.accept(userId, friendId, random.nextBoolean());
+                    }
+                }
+            }
+            for (int friendId = 2; friendId < friends + 2; friendId++) {
+                consumer.accept(1, friendId, false);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Integer> suggestFriends() {
+        return graph.suggestFriends(1, 10);
+    }
+}
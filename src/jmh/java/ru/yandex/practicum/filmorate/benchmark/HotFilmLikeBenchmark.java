@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmLikeCounters;
+import ru.yandex.practicum.filmorate.service.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many threads liking and unliking one film. Run with several thread counts to see the scaling, e.g.
+ * {@code -Djmh.args="HotFilmLikeBenchmark -t 1"} and {@code -t 8}. {@code lockedIndex} is the previous
+ * scheme, where every like set the film's count in the popularity index under its lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotFilmLikeBenchmark {
+    private static final int MAX_THREADS = 256;
+
+    private FilmService filmService;
+    private FilmPopularityIndex popularityIndex;
+    private FilmLikeCounters likeCounters;
+    private int filmId;
+    private final AtomicInteger nextUser = new AtomicInteger();
+    private int[] userIds;
+
+    @State(Scope.Thread)
+    public static class Liker {
+        private int userId;
+        private int count;
+
+        @Setup(Level.Trial)
+        public void setUp(HotFilmLikeBenchmark benchmark) {
+            userId = benchmark.userIds[benchmark.nextUser.getAndIncrement()];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(userStorage);
+        popularityIndex = new FilmPopularityIndex();
+        likeCounters = new FilmLikeCounters(popularityIndex, true, Duration.ofMillis(100));
+        likeCounters.start();
+        filmService = new FilmService(filmStorage, new UserService(userStorage, new FriendGraph()), popularityIndex,
+                true, likeCounters, LikeWriteBehindQueue.disabled(), new LikeGraph(100), new FilmSearchIndex());
+
+        Film film = new Film();
+        film.setName("premiere");
+        film.setDescription("hot film");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new Mpa(1, null));
+        filmId = filmService.addFilm(film).getId();
+
+        userIds = new int[MAX_THREADS];
+        for (int i = 0; i < MAX_THREADS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userIds[i] = userStorage.addUser(user).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        likeCounters.stop();
+    }
+
+    @Benchmark
+    public Film likeAndUnlike(Liker liker) {
+        filmService.addLike(filmId, liker.userId);
+        return filmService.removeLike(filmId, liker.userId);
+    }
+
+    @Benchmark
+    public void stripedCounters() {
+        likeCounters.increment(filmId);
+        likeCounters.decrement(filmId);
+    }
+
+    @Benchmark
+    public void lockedIndex(Liker liker) {
+        popularityIndex.setLikeCount(filmId, ++liker.count);
+        popularityIndex.setLikeCount(filmId, --liker.count);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.SortedIntSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Footprint and speed of the set behind {@code Film.likes}. The retained size of a filled set is
+ * measured with JOL once per trial and printed as bytes per like.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LikeSetBenchmark {
+    @Param({"1000", "100000", "500000"})
+    private int likes;
+
+    @Param({"HashSet", "SortedIntSet"})
+    private String set;
+
+    private int[] userIds;
+    private Set<Integer> filled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userIds = new int[likes];
+        for (int i = 0; i < likes; i++) {
+            userIds[i] = i * 3 + 1;
+        }
+        filled = buildSet();
+        long retainedSize = GraphLayout.parseInstance(filled).totalSize();
+        System.out.printf("%n%s with %d likes: %d bytes, %.1f bytes per like%n",
+                set, likes, retainedSize, (double) retainedSize / likes);
+    }
+
+    @Benchmark
+    public Set<Integer> build() {
+        return buildSet();
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return filled.contains(ThreadLocalRandom.current().nextInt(likes * 3));
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (int userId : filled) {
+            sum += userId;
+        }
+        return sum;
+    }
+
+    private Set<Integer> buildSet() {
+        Set<Integer> result = set.equals("HashSet") ? new HashSet<>() : new SortedIntSet();
+        for (int userId : userIds) {
+            result.add(userId);
+        }
+        return result;
+    }
+}
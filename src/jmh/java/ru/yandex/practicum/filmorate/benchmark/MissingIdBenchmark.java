@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.Exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of film ids that do not exist, with and without the id filter, next to lookups of existing films.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MissingIdBenchmark {
+    @Param({"false", "true"})
+    private boolean idFilter;
+
+    private BenchmarkDatabase database;
+    private FilmDbStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seed(100_000);
+        filmStorage = new FilmDbStorage(database.jdbcTemplate, new ReferenceDataCache(100), EntityCache.disabled(),
+                idFilter);
+        filmStorage.loadIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Object getMissingFilm() {
+        try {
+            return filmStorage.getFilm(database.films + 1 + ThreadLocalRandom.current().nextInt(database.films));
+        } catch (FilmNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean missingFilmExists() {
+        return filmStorage.exists(database.films + 1 + ThreadLocalRandom.current().nextInt(database.films));
+    }
+
+    @Benchmark
+    public Film getFilm() {
+        return filmStorage.getFilm(ThreadLocalRandom.current().nextInt(database.films) + 1);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmLikeCounters;
+import ru.yandex.practicum.filmorate.service.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PopularFilmsBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int likes;
+
+    @Param({"true", "false"})
+    private boolean popularityIndex;
+
+    @Param({"10"})
+    private int count;
+
+    private BenchmarkDatabase database;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seed(likes);
+        FilmDbStorage filmStorage = new FilmDbStorage(database.jdbcTemplate, new ReferenceDataCache(100),
+                EntityCache.disabled());
+        UserService userService = new UserService(new UserDbStorage(database.jdbcTemplate, EntityCache.disabled()),
+                new FriendGraph());
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        filmService = new FilmService(filmStorage, userService, index, popularityIndex,
+                new FilmLikeCounters(index, true, Duration.ofMillis(100)), LikeWriteBehindQueue.disabled(),
+                new LikeGraph(100), new FilmSearchIndex());
+        filmService.rebuildPopularityIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(count, DESCENDING_ORDER);
+    }
+}
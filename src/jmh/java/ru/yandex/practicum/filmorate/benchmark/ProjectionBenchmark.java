@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JSON serialization of a page of popular films, full versus {@code ?view=summary}. The payload sizes
+ * are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int FILMS = 100;
+
+    @Param({"10", "1000"})
+    private int likesPerFilm;
+
+    private ObjectMapper objectMapper;
+    private List<Film> films;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        films = new ArrayList<>(FILMS);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setId(i + 1);
+            film.setName("Film " + i);
+            film.setDescription("Description of film " + i);
+            film.setReleaseDate(LocalDate.of(1960, 1, 1).plusDays(i));
+            film.setDuration(90 + i % 60);
+            film.setMpa(new Mpa(i % 5 + 1, "PG"));
+            film.setGenres(List.of(new Genre(i % 6 + 1, "Drama")));
+            for (int userId = 1; userId <= likesPerFilm; userId++) {
+                film.getLikes().add(userId * 7 + i);
+            }
+            films.add(film);
+        }
+        System.out.println("\nfull: " + full().length + " bytes, summary: " + summary().length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] full() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(films);
+    }
+
+    @Benchmark
+    public byte[] summary() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(films.stream()
+                .map(FilmSummary::of)
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int likes;
+
+    private BenchmarkDatabase database;
+    private UserDbStorage userStorage;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seed(likes);
+        userStorage = new UserDbStorage(database.jdbcTemplate, EntityCache.disabled());
+        userService = new UserService(userStorage, new FriendGraph());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<User> getUserFriends() {
+        return userStorage.getUserFriends(randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        int userId = randomUserId();
+        return userService.getCommonFriends(userId, userId % database.users + 1);
+    }
+
+    private int randomUserId() {
+        return ThreadLocalRandom.current().nextInt(database.users) + 1;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmLikeCounters;
+import ru.yandex.practicum.filmorate.service.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write requests through the services over the database storages, with the entity cache off as by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WriteBenchmark {
+    private BenchmarkDatabase database;
+    private FilmService filmService;
+    private UserService userService;
+    private int newUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seed(100_000);
+        UserDbStorage userStorage = new UserDbStorage(database.jdbcTemplate, EntityCache.disabled());
+        FilmDbStorage filmStorage = new FilmDbStorage(database.jdbcTemplate, new ReferenceDataCache(100),
+                EntityCache.disabled());
+        userService = new UserService(userStorage, new FriendGraph());
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+        filmService = new FilmService(filmStorage, userService, popularityIndex, true,
+                new FilmLikeCounters(popularityIndex, true, Duration.ofSeconds(1)), LikeWriteBehindQueue.disabled(),
+                new LikeGraph(100), new FilmSearchIndex());
+        filmService.rebuildPopularityIndex();
+        User user = new User();
+        user.setEmail("writer@mail.ru");
+        user.setLogin("writer");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        newUserId = userStorage.addUser(user).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        return filmService.addFilm(newFilm());
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        Film film = newFilm();
+        film.setId(randomFilmId());
+        return filmService.updateFilm(film);
+    }
+
+    @Benchmark
+    public Film likeAndUnlike() {
+        int filmId = randomFilmId();
+        filmService.addLike(filmId, newUserId);
+        return filmService.removeLike(filmId, newUserId);
+    }
+
+    @Benchmark
+    public User addAndRemoveFriend() {
+        int friendId = ThreadLocalRandom.current().nextInt(database.users) + 1;
+        userService.addFriend(newUserId, friendId);
+        return userService.removeFriend(newUserId, friendId);
+    }
+
+    private int randomFilmId() {
+        return ThreadLocalRandom.current().nextInt(database.films) + 1;
+    }
+
+    private static Film newFilm() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Written by the benchmark");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null));
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        return film;
+    }
+}
@@ -11,4 +11,15 @@ public class FilmNotFoundException extends RuntimeException {
     public FilmNotFoundException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    private FilmNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * An exception without a stack trace, for lookups of unknown ids that are rejected before any query.
+     */
+    public static FilmNotFoundException withoutStackTrace(String message) {
+        return new FilmNotFoundException(message, false);
+    }
 }
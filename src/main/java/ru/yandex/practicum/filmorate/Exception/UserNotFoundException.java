@@ -11,4 +11,15 @@ public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    private UserNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * An exception without a stack trace, for lookups of unknown ids that are rejected before any query.
+     */
+    public static UserNotFoundException withoutStackTrace(String message) {
+        return new UserNotFoundException(message, false);
+    }
 }
@@ -1,9 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.Exception.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.FilmService;
@@ -11,16 +17,25 @@ import ru.yandex.practicum.filmorate.service.FilmService;
 import javax.validation.Valid;
 import java.util.List;
 
+import static ru.yandex.practicum.filmorate.storage.Constants.DEFAULT_PAGE_SIZE;
 import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
+import static ru.yandex.practicum.filmorate.storage.Constants.FULL_VIEW;
+import static ru.yandex.practicum.filmorate.storage.Constants.MAX_IMPORT_SIZE;
+import static ru.yandex.practicum.filmorate.storage.Constants.MAX_PAGE_SIZE;
 import static ru.yandex.practicum.filmorate.storage.Constants.SORTS;
+import static ru.yandex.practicum.filmorate.storage.Constants.SUMMARY_VIEW;
 
 @RestController
+@Validated
 public class FilmController {
     private final FilmService filmService;
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/films")
@@ -28,14 +43,44 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    @PostMapping("/films/batch")
+    public List<Integer> addFilms(@RequestBody List<@Valid Film> films) {
+        if (films.size() > MAX_IMPORT_SIZE) {
+            throw new IncorrectParameterException("films");
+        }
+        return filmService.addFilms(films);
+    }
+
     @PutMapping("/films")
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
     }
 
     @GetMapping("/films")
-    public List<Film> getFilms() {
-        return filmService.getFilms();
+    public List<Film> getFilms(@RequestParam(required = false) Integer after,
+                               @RequestParam(required = false) Integer limit,
+                               @RequestParam(defaultValue = FULL_VIEW, required = false) String view) {
+        checkFullView(view);
+        if (after == null && limit == null) {
+            return filmService.getFilms();
+        }
+        checkPage(after, limit);
+        return filmService.getFilms(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    @GetMapping(value = "/films", params = "view=" + SUMMARY_VIEW)
+    public List<FilmSummary> getFilmSummaries(@RequestParam(required = false) Integer after,
+                                              @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return filmService.getFilmSummaries();
+        }
+        checkPage(after, limit);
+        return filmService.getFilmSummaries(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    @GetMapping(value = "/films", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        return NdjsonStreams.of(objectMapper, filmService::streamFilms);
     }
 
     @GetMapping("/films/{filmId}")
@@ -44,27 +89,70 @@ public class FilmController {
     }
 
     @PutMapping("/films/{id}/like/{userId}")
-    public Film addFilmLike(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
+    public Film addFilmLike(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId,
+                            @RequestParam(defaultValue = FULL_VIEW, required = false) String view) {
+        checkFullView(view);
         return filmService.addLike(filmId, userId);
     }
 
+    @PutMapping(value = "/films/{id}/like/{userId}", params = "view=" + SUMMARY_VIEW)
+    public FilmSummary addFilmLikeSummary(@PathVariable("id") Integer filmId,
+                                          @PathVariable("userId") Integer userId) {
+        return filmService.addLikeSummary(filmId, userId);
+    }
+
     @DeleteMapping("/films/{id}/like/{userId}")
-    public Film removeFilmLike(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
+    public Film removeFilmLike(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId,
+                               @RequestParam(defaultValue = FULL_VIEW, required = false) String view) {
+        checkFullView(view);
         return filmService.removeLike(filmId, userId);
     }
 
+    @DeleteMapping(value = "/films/{id}/like/{userId}", params = "view=" + SUMMARY_VIEW)
+    public FilmSummary removeFilmLikeSummary(@PathVariable("id") Integer filmId,
+                                             @PathVariable("userId") Integer userId) {
+        return filmService.removeLikeSummary(filmId, userId);
+    }
+
     @GetMapping("/films/popular")
     public List<Film> getPopularFilms(
+            @RequestParam(defaultValue = "10", required = false) Integer size,
+            @RequestParam(defaultValue = DESCENDING_ORDER, required = false) String sortingOrder,
+            @RequestParam(defaultValue = FULL_VIEW, required = false) String view
+    ) {
+        checkFullView(view);
+        checkPopular(size, sortingOrder);
+        return filmService.getPopularFilms(size, sortingOrder);
+    }
+
+    @GetMapping(value = "/films/popular", params = "view=" + SUMMARY_VIEW)
+    public List<FilmSummary> getPopularFilmSummaries(
             @RequestParam(defaultValue = "10", required = false) Integer size,
             @RequestParam(defaultValue = DESCENDING_ORDER, required = false) String sortingOrder
     ) {
-        if (!SORTS.contains(sortingOrder)) {
-            throw new IncorrectParameterException("sort");
+        checkPopular(size, sortingOrder);
+        return filmService.getPopularFilmSummaries(size, sortingOrder);
+    }
+
+    @GetMapping("/films/search")
+    public List<Film> searchFilms(@RequestParam("q") String query,
+                                  @RequestParam(defaultValue = "10", required = false) Integer limit) {
+        if (query.isBlank()) {
+            throw new IncorrectParameterException("q");
         }
-        if (size <= 0) {
-            throw new IncorrectParameterException("page");
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IncorrectParameterException("limit");
         }
-        return filmService.getPopularFilms(size, sortingOrder);
+        return filmService.searchFilms(query, limit);
+    }
+
+    @GetMapping("/users/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable("id") Integer userId,
+                                         @RequestParam(defaultValue = "10", required = false) Integer limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IncorrectParameterException("limit");
+        }
+        return filmService.getRecommendations(userId, limit);
     }
 
     @GetMapping("/genres")
@@ -86,4 +174,29 @@ public class FilmController {
     public List<Mpa> getAllRatings() {
         return filmService.getAllRatings();
     }
+
+    // "view=summary" is mapped to its own handlers; any other value is rejected here.
+    private static void checkFullView(String view) {
+        if (!view.equals(FULL_VIEW)) {
+            throw new IncorrectParameterException("view");
+        }
+    }
+
+    private static void checkPage(Integer after, Integer limit) {
+        if (after != null && after < 0) {
+            throw new IncorrectParameterException("after");
+        }
+        if (limit != null && (limit <= 0 || limit > MAX_PAGE_SIZE)) {
+            throw new IncorrectParameterException("limit");
+        }
+    }
+
+    private static void checkPopular(Integer size, String sortingOrder) {
+        if (!SORTS.contains(sortingOrder)) {
+            throw new IncorrectParameterException("sort");
+        }
+        if (size <= 0) {
+            throw new IncorrectParameterException("page");
+        }
+    }
 }
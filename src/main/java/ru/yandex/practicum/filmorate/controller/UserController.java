@@ -1,7 +1,12 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.Exception.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
@@ -10,15 +15,23 @@ import javax.validation.Valid;
 import java.util.List;
 import java.util.Map;
 
+import static ru.yandex.practicum.filmorate.storage.Constants.DEFAULT_PAGE_SIZE;
+import static ru.yandex.practicum.filmorate.storage.Constants.MAX_IMPORT_SIZE;
+import static ru.yandex.practicum.filmorate.storage.Constants.MAX_PAGE_SIZE;
+
 @RestController
+@Validated
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userService;
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -26,14 +39,37 @@ public class UserController {
         return userService.addUser(user);
     }
 
+    @PostMapping("/batch")
+    public List<Integer> addUsers(@RequestBody List<@Valid User> users) {
+        if (users.size() > MAX_IMPORT_SIZE) {
+            throw new IncorrectParameterException("users");
+        }
+        return userService.addUsers(users);
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         return userService.updateUser(user);
     }
 
     @GetMapping
-    public List<User> getUsers() {
-        return userService.getUsers();
+    public List<User> getUsers(@RequestParam(required = false) Integer after,
+                               @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return userService.getUsers();
+        }
+        if (after != null && after < 0) {
+            throw new IncorrectParameterException("after");
+        }
+        if (limit != null && (limit <= 0 || limit > MAX_PAGE_SIZE)) {
+            throw new IncorrectParameterException("limit");
+        }
+        return userService.getUsers(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        return NdjsonStreams.of(objectMapper, userService::streamUsers);
     }
 
     @GetMapping("/{userId}")
@@ -72,6 +108,15 @@ public class UserController {
         return userService.getUserFriends(userId);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable("id") Integer userId,
+                                           @RequestParam(defaultValue = "10") Integer limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IncorrectParameterException("limit");
+        }
+        return userService.getFriendSuggestions(userId, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable("id") Integer userId, @PathVariable("otherId") Integer otherUserId) {
         if (userId.equals(otherUserId)) {
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public call to the film/user storages and services. Controller endpoints are
+ * already timed by Spring Boot as {@code http.server.requests}.
+ */
+@Aspect
+@Component
+public class CallTimingAspect {
+    static final String STORAGE_TIMER = "filmorate.storage";
+    static final String SERVICE_TIMER = "filmorate.service";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public CallTimingAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.film.FilmStorage+.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.storage.user.UserStorage+.*(..))")
+    public Object timeStorageCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(STORAGE_TIMER, joinPoint);
+    }
+
+    @Around("within(ru.yandex.practicum.filmorate.service.*Service) && execution(public * *(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    private Object time(String timerName, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(timerName)
+                    .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+}
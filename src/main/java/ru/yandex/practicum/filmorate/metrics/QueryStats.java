@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+/**
+ * Statements executed and time spent in JDBC by the current HTTP request.
+ */
+public class QueryStats {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int queryCount;
+
+    private long queryNanos;
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void record(long nanos) {
+        queryCount++;
+        queryNanos += nanos;
+    }
+
+    public int getQueryCount() {
+        return queryCount;
+    }
+
+    public long getQueryMillis() {
+        return queryNanos / 1_000_000;
+    }
+}
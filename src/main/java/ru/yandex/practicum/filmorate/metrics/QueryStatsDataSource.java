@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSource that times every executed statement, adds it to {@link QueryStats} of the current
+ * request and logs statements slower than the threshold with their SQL and bind parameters.
+ */
+@Slf4j
+public class QueryStatsDataSource extends DelegatingDataSource {
+    private final long slowQueryThresholdNanos;
+
+    public QueryStatsDataSource(DataSource targetDataSource, Duration slowQueryThreshold) {
+        super(targetDataSource);
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connectionProxy(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connectionProxy(super.getConnection(username, password));
+    }
+
+    private Connection connectionProxy(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "getTargetConnection":
+                            return connection;
+                        default:
+                            break;
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof CallableStatement) {
+                        return statementProxy((Statement) result, CallableStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof PreparedStatement) {
+                        return statementProxy((Statement) result, PreparedStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof Statement) {
+                        return statementProxy((Statement) result, Statement.class, null);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement statementProxy(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        List<Object> parameters = new ArrayList<>();
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        setParameter(parameters, (Integer) args[0], args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("execute")) {
+                        String sql = preparedSql != null ? preparedSql
+                                : args != null && args.length > 0 ? (String) args[0] : "batch";
+                        long start = System.nanoTime();
+                        try {
+                            return invoke(statement, method, args);
+                        } finally {
+                            recordExecution(sql, parameters, System.nanoTime() - start);
+                        }
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private void recordExecution(String sql, List<Object> parameters, long nanos) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.record(nanos);
+        }
+        if (nanos >= slowQueryThresholdNanos) {
+            log.warn("Медленный запрос ({} мс): {}; параметры: {}", nanos / 1_000_000, sql.strip(), parameters);
+        }
+    }
+
+    private static void setParameter(List<Object> parameters, int index, Object value) {
+        while (parameters.size() < index) {
+            parameters.add(null);
+        }
+        parameters.set(index - 1, value);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
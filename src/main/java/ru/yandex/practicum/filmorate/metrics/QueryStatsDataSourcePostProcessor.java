@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.jdbc.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsDataSourcePostProcessor implements BeanPostProcessor {
+    private final Duration slowQueryThreshold;
+
+    public QueryStatsDataSourcePostProcessor(
+            @Value("${filmorate.jdbc.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof QueryStatsDataSource)) {
+            return new QueryStatsDataSource((DataSource) bean, slowQueryThreshold);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Reports the statements executed by a request in the X-Query-Count and X-Query-Time-Ms headers
+ * and in a log line. Streamed NDJSON responses are written on an async thread after the filter
+ * has returned, so the queries made while streaming are not counted in the headers or the log line.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.jdbc.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class QueryStatsFilter extends OncePerRequestFilter {
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.start();
+        try {
+            QueryStatsResponse wrapped = new QueryStatsResponse(response, stats);
+            chain.doFilter(request, wrapped);
+            wrapped.writeHeaders();
+            log.info("{} {}: {} запросов к БД за {} мс", request.getMethod(), request.getRequestURI(),
+                    stats.getQueryCount(), stats.getQueryMillis());
+        } finally {
+            QueryStats.stop();
+        }
+    }
+
+    private static class QueryStatsResponse extends HttpServletResponseWrapper {
+        private final QueryStats stats;
+
+        private boolean headersWritten;
+
+        QueryStatsResponse(HttpServletResponse response, QueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setIntHeader(QUERY_COUNT_HEADER, stats.getQueryCount());
+            setHeader(QUERY_TIME_HEADER, String.valueOf(stats.getQueryMillis()));
+        }
+    }
+}
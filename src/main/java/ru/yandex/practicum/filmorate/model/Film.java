@@ -10,7 +10,6 @@ import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -28,7 +27,27 @@ public class Film {
     private LocalDate releaseDate;
     @Positive(message = "Длительность фильма должна быть положительным числом")
     private int duration;
-    private Set<Integer> likes = new HashSet<>();
+    private Set<Integer> likes = new SortedIntSet();
     private List<Genre> genres = new ArrayList<>();
     private Mpa mpa;
+
+    public void setLikes(Set<Integer> likes) {
+        this.likes = likes == null ? new SortedIntSet() : SortedIntSet.copyOf(likes);
+    }
+
+    /**
+     * Copy with its own likes and genres, to change a film that may be shared by the entity cache.
+     */
+    public static Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setLikes(film.getLikes());
+        copy.setGenres(new ArrayList<>(film.getGenres()));
+        copy.setMpa(film.getMpa());
+        return copy;
+    }
 }
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Film without its likes, for {@code ?view=summary}: clients of film lists only need the number of likes,
+ * and the ids make up most of the payload of popular films.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class FilmSummary {
+    @EqualsAndHashCode.Include
+    private int id;
+    private String name;
+    private String description;
+    private LocalDate releaseDate;
+    private int duration;
+    private int likeCount;
+    private List<Genre> genres = new ArrayList<>();
+    private Mpa mpa;
+
+    public static FilmSummary of(Film film) {
+        FilmSummary summary = new FilmSummary();
+        summary.setId(film.getId());
+        summary.setName(film.getName());
+        summary.setDescription(film.getDescription());
+        summary.setReleaseDate(film.getReleaseDate());
+        summary.setDuration(film.getDuration());
+        summary.setLikeCount(film.getLikes().size());
+        summary.setGenres(film.getGenres());
+        summary.setMpa(film.getMpa());
+        return summary;
+    }
+}
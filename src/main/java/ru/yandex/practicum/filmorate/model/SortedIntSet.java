@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of ints kept as a sorted primitive array: 4 bytes per element instead of a boxed Integer
+ * plus a hash node. Appending ascending values, which is how likes and friends are read from
+ * the database, is amortized O(1); other inserts and removals shift the tail of the array.
+ * Iterates in ascending order, so it serializes to the same JSON array as a HashSet of small ids.
+ */
+public class SortedIntSet extends AbstractSet<Integer> {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements = EMPTY;
+
+    private int size;
+
+    private int modCount;
+
+    public SortedIntSet() {
+    }
+
+    public SortedIntSet(Collection<Integer> values) {
+        addAll(values);
+    }
+
+    public static SortedIntSet copyOf(Collection<Integer> values) {
+        return new SortedIntSet(values);
+    }
+
+    public boolean add(int value) {
+        if (size == 0 || value > elements[size - 1]) {
+            ensureCapacity(size + 1);
+            elements[size++] = value;
+            modCount++;
+            return true;
+        }
+        int index = Arrays.binarySearch(elements, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, insertAt, elements, insertAt + 1, size - insertAt);
+        elements[insertAt] = value;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> values) {
+        if (size != 0 || values.size() < 2) {
+            return super.addAll(values);
+        }
+        int[] sorted;
+        if (values instanceof SortedIntSet) {
+            sorted = ((SortedIntSet) values).toIntArray();
+        } else {
+            sorted = values.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        }
+        elements = sorted;
+        size = sorted.length;
+        modCount++;
+        return size != 0;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(elements, 0, size, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Integer && contains(((Integer) value).intValue());
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(elements, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Integer && remove(((Integer) value).intValue());
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return elements[index];
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public void trimToSize() {
+        if (elements.length != size) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return elements[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(capacity, elements.length + (elements.length >> 1) + 1));
+        }
+    }
+}
@@ -8,7 +8,6 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.PastOrPresent;
 import javax.validation.constraints.Pattern;
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -25,5 +24,23 @@ public class User {
     private String name;
     @PastOrPresent(message = "День рождения должен быть датой в прошлом")
     private LocalDate birthday;
-    private Set<Integer> friends = new HashSet<>();
+    private Set<Integer> friends = new SortedIntSet();
+
+    public void setFriends(Set<Integer> friends) {
+        this.friends = friends == null ? new SortedIntSet() : SortedIntSet.copyOf(friends);
+    }
+
+    /**
+     * Copy with its own friends, to change a user that may be shared by the entity cache.
+     */
+    public static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setFriends(user.getFriends());
+        return copy;
+    }
 }
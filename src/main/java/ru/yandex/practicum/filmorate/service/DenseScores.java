@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Helpers for scores kept in arrays indexed by user or film id, shared by the in-memory graphs.
+ */
+final class DenseScores {
+    private DenseScores() {
+    }
+
+    /**
+     * Ids in [0, size) with a positive score, highest score first, ties by id.
+     */
+    static List<Integer> top(int size, IntToLongFunction score, int limit) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, size) + 1, (a, b) -> {
+            int byScore = Long.compare(score.applyAsLong(a), score.applyAsLong(b));
+            return byScore != 0 ? byScore : Integer.compare(b, a);
+        });
+        for (int id = 0; id < size; id++) {
+            if (score.applyAsLong(id) > 0) {
+                best.add(id);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Integer> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    static void addAll(int[] target, int[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    static void addAll(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Like count changes per film, kept in {@link LongAdder}s so that concurrent likes of one hot film
+ * update different cells instead of contending on one lock or CAS. Changes are folded into
+ * {@link FilmPopularityIndex} every {@code fold-interval} and before the ranking is read. Changes of a film
+ * the index does not have yet, e.g. one liked right after it was added, wait for the next fold.
+ * A fold only visits the films changed since the previous one.
+ */
+@Component
+@Slf4j
+public class FilmLikeCounters {
+    private final FilmPopularityIndex popularityIndex;
+
+    private final boolean enabled;
+
+    private final Duration foldInterval;
+
+    private final ConcurrentMap<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    // ids of films with changes not folded yet, each queued once until the next fold
+    private final Queue<Integer> dirtyFilmIds = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService folder;
+
+    @Autowired
+    public FilmLikeCounters(FilmPopularityIndex popularityIndex,
+                            @Value("${filmorate.popularity-index.enabled:true}") boolean enabled,
+                            @Value("${filmorate.popularity-index.fold-interval:100ms}") Duration foldInterval) {
+        this.popularityIndex = popularityIndex;
+        this.enabled = enabled;
+        this.foldInterval = foldInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        folder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-counter-folder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        folder.scheduleWithFixedDelay(this::foldQuietly, foldInterval.toMillis(), foldInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (folder != null) {
+            folder.shutdownNow();
+        }
+    }
+
+    public void increment(int filmId) {
+        Counter counter = counter(filmId);
+        counter.changes.increment();
+        markDirty(filmId, counter);
+    }
+
+    public void decrement(int filmId) {
+        Counter counter = counter(filmId);
+        counter.changes.decrement();
+        markDirty(filmId, counter);
+    }
+
+    /**
+     * Moves the changes made since the previous fold into the popularity index, in one index update.
+     */
+    public void fold() {
+        if (dirtyFilmIds.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Map<Integer, Long> deltas = new HashMap<>();
+            Map<Integer, Counter> changed = new HashMap<>();
+            for (Integer filmId = dirtyFilmIds.poll(); filmId != null; filmId = dirtyFilmIds.poll()) {
+                Counter counter = counters.get(filmId);
+                if (counter == null) {
+                    continue;
+                }
+                // Cleared before the sum is read, so a change made after the read queues the film again.
+                counter.dirty.set(false);
+                // The adders are never reset: a reset can lose an increment racing with it on Java 11.
+                long total = counter.changes.sum();
+                if (total != counter.folded) {
+                    deltas.put(filmId, total - counter.folded);
+                    changed.put(filmId, counter);
+                }
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            Set<Integer> skipped = popularityIndex.addLikeCounts(deltas);
+            changed.forEach((filmId, counter) -> {
+                if (skipped.contains(filmId)) {
+                    markDirty(filmId, counter);
+                } else {
+                    counter.folded += deltas.get(filmId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Marks all changes as folded without applying them, before the index is rebuilt from the database.
+     */
+    public synchronized void discard() {
+        dirtyFilmIds.clear();
+        counters.values().forEach(counter -> {
+            counter.dirty.set(false);
+            counter.folded = counter.changes.sum();
+        });
+    }
+
+    private Counter counter(int filmId) {
+        Counter counter = counters.get(filmId);
+        return counter != null ? counter : counters.computeIfAbsent(filmId, id -> new Counter());
+    }
+
+    private void markDirty(int filmId, Counter counter) {
+        if (!counter.dirty.get() && counter.dirty.compareAndSet(false, true)) {
+            dirtyFilmIds.add(filmId);
+        }
+    }
+
+    private void foldQuietly() {
+        try {
+            fold();
+        } catch (RuntimeException e) {
+            log.error("Ошибка обновления индекса популярности", e);
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder changes = new LongAdder();
+
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        // only read and written under the fold lock
+        private long folded;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
+
+/**
+ * Like counts of all films, grouped by count. Films with the same count are kept in ascending id order,
+ * which matches the stable sort over {@code getFilms()} used before the index existed.
+ */
+@Component
+public class FilmPopularityIndex {
+    private final Map<Integer, Integer> likeCounts = new HashMap<>();
+    private final TreeMap<Integer, TreeSet<Integer>> filmsByLikeCount = new TreeMap<>();
+
+    public synchronized void rebuild(Map<Integer, Integer> counts) {
+        likeCounts.clear();
+        filmsByLikeCount.clear();
+        counts.forEach(this::setLikeCount);
+    }
+
+    public synchronized void setLikeCount(int filmId, int count) {
+        Integer previous = likeCounts.put(filmId, count);
+        if (previous != null) {
+            removeFromBucket(previous, filmId);
+        }
+        filmsByLikeCount.computeIfAbsent(count, c -> new TreeSet<>()).add(filmId);
+    }
+
+    /**
+     * Adds like count changes (film id -> delta). Films not in the index are skipped.
+     *
+     * @return ids of the skipped films
+     */
+    public synchronized Set<Integer> addLikeCounts(Map<Integer, Long> deltas) {
+        Set<Integer> skipped = new HashSet<>();
+        deltas.forEach((filmId, delta) -> {
+            Integer previous = likeCounts.get(filmId);
+            if (previous != null) {
+                setLikeCount(filmId, (int) Math.max(0, previous + delta));
+            } else {
+                skipped.add(filmId);
+            }
+        });
+        return skipped;
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        Integer previous = likeCounts.remove(filmId);
+        if (previous != null) {
+            removeFromBucket(previous, filmId);
+        }
+    }
+
+    public synchronized int getLikeCount(int filmId) {
+        return likeCounts.getOrDefault(filmId, 0);
+    }
+
+    public synchronized List<Integer> getTopFilmIds(int count, String sortingOrder) {
+        NavigableMap<Integer, TreeSet<Integer>> buckets = sortingOrder.equals(DESCENDING_ORDER)
+                ? filmsByLikeCount.descendingMap()
+                : filmsByLikeCount;
+        List<Integer> result = new ArrayList<>(Math.min(count, likeCounts.size()));
+        for (TreeSet<Integer> bucket : buckets.values()) {
+            for (Integer filmId : bucket) {
+                if (result.size() == count) {
+                    return result;
+                }
+                result.add(filmId);
+            }
+        }
+        return result;
+    }
+
+    private void removeFromBucket(int count, int filmId) {
+        TreeSet<Integer> bucket = filmsByLikeCount.get(count);
+        bucket.remove(filmId);
+        if (bucket.isEmpty()) {
+            filmsByLikeCount.remove(count);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index over film names and descriptions, ranked with BM25. Terms are runs of Unicode letters
+ * and digits, lower-cased, with "ё" folded into "е". Name terms count twice, so a match in the name
+ * outranks the same match in the description. Postings are kept sorted by film id and merged
+ * document-at-a-time, so a query costs the length of its terms' postings, not the number of films.
+ */
+@Component
+public class FilmSearchIndex {
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int NAME_WEIGHT = 2;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // film id -> distinct terms of the film, to unindex it on update and delete
+    private final Map<Integer, String[]> filmTerms = new HashMap<>();
+
+    private int[] filmLengths = new int[0];
+
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the index with the given films.
+     */
+    public void rebuild(Consumer<Consumer<Film>> films) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            filmTerms.clear();
+            filmLengths = new int[0];
+            totalLength = 0;
+            films.accept(this::index);
+            postings.values().forEach(Postings::trimToSize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a new film or reindexes an updated one.
+     */
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            unindex(film.getId());
+            index(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} films matching any term of the query, best first; ties go to the lower id.
+     */
+    public List<Integer> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            List<Postings> matched = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings != null) {
+                    matched.add(termPostings);
+                }
+            }
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+            return topFilms(matched, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                int lower = Character.toLowerCase(codePoint);
+                token.appendCodePoint(lower == 'ё' ? 'е' : lower);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private void index(Film film) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : tokenize(film.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String term : tokenize(film.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        String[] terms = new String[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            Postings termPostings = postings.get(frequency.getKey());
+            if (termPostings == null) {
+                termPostings = new Postings(frequency.getKey());
+                postings.put(frequency.getKey(), termPostings);
+            }
+            termPostings.add(film.getId(), frequency.getValue());
+            // share the term string with the postings map
+            terms[i++] = termPostings.term;
+        }
+        filmTerms.put(film.getId(), terms);
+        if (film.getId() >= filmLengths.length) {
+            filmLengths = Arrays.copyOf(filmLengths, Math.max(film.getId() + 1, filmLengths.length * 2));
+        }
+        filmLengths[film.getId()] = length;
+        totalLength += length;
+    }
+
+    private void unindex(int filmId) {
+        String[] terms = filmTerms.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(filmId);
+            if (termPostings.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= filmLengths[filmId];
+        filmLengths[filmId] = 0;
+    }
+
+    private List<Integer> topFilms(List<Postings> matched, int limit) {
+        int filmCount = filmTerms.size();
+        double averageLength = (double) totalLength / filmCount;
+        double[] idf = new double[matched.size()];
+        for (int t = 0; t < matched.size(); t++) {
+            int documentFrequency = matched.get(t).size;
+            idf[t] = Math.log(1 + (filmCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+        int[] cursors = new int[matched.size()];
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+        while (true) {
+            int filmId = Integer.MAX_VALUE;
+            for (int t = 0; t < matched.size(); t++) {
+                Postings termPostings = matched.get(t);
+                if (cursors[t] < termPostings.size) {
+                    filmId = Math.min(filmId, termPostings.filmIds[cursors[t]]);
+                }
+            }
+            if (filmId == Integer.MAX_VALUE) {
+                break;
+            }
+            double lengthNorm = K1 * (1 - B + B * filmLengths[filmId] / averageLength);
+            double score = 0;
+            for (int t = 0; t < matched.size(); t++) {
+                Postings termPostings = matched.get(t);
+                if (cursors[t] < termPostings.size && termPostings.filmIds[cursors[t]] == filmId) {
+                    int frequency = termPostings.frequencies[cursors[t]++];
+                    score += idf[t] * frequency * (K1 + 1) / (frequency + lengthNorm);
+                }
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(filmId, score));
+            } else if (score > best.peek().score) {
+                best.poll();
+                best.add(new Hit(filmId, score));
+            }
+        }
+        List<Integer> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().filmId);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Film ids in ascending order with the term frequency of each.
+    private static final class Postings {
+        private final String term;
+        private int[] filmIds = new int[1];
+        private int[] frequencies = new int[1];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int filmId, int frequency) {
+            int index = size == 0 || filmId > filmIds[size - 1] ? size : Arrays.binarySearch(filmIds, 0, size, filmId);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (size == filmIds.length) {
+                int capacity = size + (size >> 1) + 1;
+                filmIds = Arrays.copyOf(filmIds, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+            }
+            System.arraycopy(filmIds, index, filmIds, index + 1, size - index);
+            System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+            filmIds[index] = filmId;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        private void remove(int filmId) {
+            int index = Arrays.binarySearch(filmIds, 0, size, filmId);
+            if (index >= 0) {
+                System.arraycopy(filmIds, index + 1, filmIds, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+        }
+
+        private void trimToSize() {
+            filmIds = Arrays.copyOf(filmIds, size);
+            frequencies = Arrays.copyOf(frequencies, size);
+        }
+    }
+
+    // Ordered worst first, so the head of the queue is the hit to evict.
+    private static final class Hit implements Comparable<Hit> {
+        private final int filmId;
+        private final double score;
+
+        private Hit(int filmId, double score) {
+            this.filmId = filmId;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.filmId, filmId);
+        }
+    }
+}
@@ -2,16 +2,21 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.Exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.comparators.FilmComparator;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.storage.Constants.IMPORT_CHUNK_SIZE;
 
 @Service
 @Slf4j
@@ -21,27 +26,112 @@ public class FilmService {
 
     private final UserService userService;
 
+    private final FilmPopularityIndex popularityIndex;
+
+    private final boolean popularityIndexEnabled;
+
+    private final FilmLikeCounters likeCounters;
+
+    private final LikeWriteBehindQueue likeQueue;
+
+    private final LikeGraph likeGraph;
+
+    private final FilmSearchIndex searchIndex;
+
     @Autowired
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
-                       UserService userService) {
+    public FilmService(FilmStorage filmStorage,
+                       UserService userService,
+                       FilmPopularityIndex popularityIndex,
+                       @Value("${filmorate.popularity-index.enabled:true}") boolean popularityIndexEnabled,
+                       FilmLikeCounters likeCounters,
+                       LikeWriteBehindQueue likeQueue,
+                       LikeGraph likeGraph,
+                       FilmSearchIndex searchIndex) {
         this.filmStorage = filmStorage;
         this.userService = userService;
+        this.popularityIndex = popularityIndex;
+        this.popularityIndexEnabled = popularityIndexEnabled;
+        this.likeCounters = likeCounters;
+        this.likeQueue = likeQueue;
+        this.likeGraph = likeGraph;
+        this.searchIndex = searchIndex;
+        likeQueue.setDroppedLikeListener((filmId, userId, liked) -> onLikeChanged(filmId, userId, !liked));
+    }
+
+    @PostConstruct
+    public void rebuildPopularityIndex() {
+        if (popularityIndexEnabled) {
+            log.info("Построение индекса популярности фильмов");
+            likeCounters.discard();
+            popularityIndex.rebuild(filmStorage.getLikeCounts());
+        }
+    }
+
+    @PostConstruct
+    public void rebuildLikeGraph() {
+        log.info("Построение графа лайков для рекомендаций");
+        likeGraph.rebuild(filmStorage::forEachFilm);
+    }
+
+    @PostConstruct
+    public void rebuildSearchIndex() {
+        log.info("Построение поискового индекса фильмов");
+        searchIndex.rebuild(filmStorage::forEachFilm);
     }
 
     public Film addFilm(Film film) {
         log.info("Запрос на добавление фильма " + film.getName());
-        return filmStorage.addFilm(film);
+        Film added = filmStorage.addFilm(film);
+        updatePopularityIndex(added);
+        searchIndex.addFilm(added);
+        return added;
+    }
+
+    public List<Integer> addFilms(List<Film> films) {
+        log.info("Запрос на добавление " + films.size() + " фильмов");
+        List<Integer> ids = new ArrayList<>(films.size());
+        for (int from = 0; from < films.size(); from += IMPORT_CHUNK_SIZE) {
+            List<Film> chunk = films.subList(from, Math.min(from + IMPORT_CHUNK_SIZE, films.size()));
+            List<Integer> chunkIds = filmStorage.addFilms(chunk);
+            if (popularityIndexEnabled) {
+                chunkIds.forEach(id -> popularityIndex.setLikeCount(id, 0));
+            }
+            chunk.forEach(searchIndex::addFilm);
+            ids.addAll(chunkIds);
+        }
+        return ids;
     }
 
     public Film updateFilm(Film film) {
         log.info("Запрос на обновление фильма " + film.getName());
-        filmStorage.getFilm(film.getId());
-        return filmStorage.updateFilm(film);
+        Film updated = filmStorage.updateFilm(film);
+        searchIndex.addFilm(updated);
+        return updated;
     }
 
     public List<Film> getFilms() {
         log.info("Запрос на получение списка всех фильмов");
-        return filmStorage.getFilms();
+        return likeQueue.applyPending(filmStorage.getFilms());
+    }
+
+    public List<Film> getFilms(int afterId, int limit) {
+        log.info("Запрос на получение " + limit + " фильмов после id = " + afterId);
+        return likeQueue.applyPending(filmStorage.getFilms(afterId, limit));
+    }
+
+    public List<FilmSummary> getFilmSummaries() {
+        log.info("Запрос на получение кратких описаний всех фильмов");
+        return likeQueue.applyPendingCounts(filmStorage.getFilmSummaries());
+    }
+
+    public List<FilmSummary> getFilmSummaries(int afterId, int limit) {
+        log.info("Запрос на получение кратких описаний " + limit + " фильмов после id = " + afterId);
+        return likeQueue.applyPendingCounts(filmStorage.getFilmSummaries(afterId, limit));
+    }
+
+    public void streamFilms(Consumer<Film> consumer) {
+        log.info("Запрос на потоковую выгрузку всех фильмов");
+        filmStorage.forEachFilm(film -> consumer.accept(likeQueue.applyPending(film)));
     }
 
     public List<Genre> getAllGenres() {
@@ -56,21 +146,68 @@ public class FilmService {
 
     public Film getFilm(int filmId) {
         log.info("Запрошен фильм с id = " + filmId);
-        return filmStorage.getFilm(filmId);
+        return likeQueue.applyPending(filmStorage.getFilm(filmId));
     }
 
     public Film addLike(int filmId, int userId) {
         log.info("Запрос на лайк фильму " + filmId + " от " + userId);
-        filmStorage.getFilm(filmId);
-        userService.getUser(userId);
-        return filmStorage.addLike(filmId, userId);
+        if (likeQueue.isEnabled()) {
+            return enqueueLike(filmId, userId, true);
+        }
+        Film stored = filmStorage.getFilm(filmId);
+        userService.checkUserExists(userId);
+        filmStorage.addLike(filmId, userId);
+        onLikeChanged(filmId, userId, true);
+        return withLike(stored, userId, true);
     }
 
     public Film removeLike(int filmId, int userId) {
         log.info("Запрос на удаление лайка фильму " + filmId + " от " + userId);
-        filmStorage.getFilm(filmId);
-        userService.getUser(userId);
-        return filmStorage.removeLike(filmId, userId);
+        if (likeQueue.isEnabled()) {
+            return enqueueLike(filmId, userId, false);
+        }
+        Film stored = filmStorage.getFilm(filmId);
+        userService.checkUserExists(userId);
+        if (!filmStorage.removeLike(filmId, userId)) {
+            return stored;
+        }
+        onLikeChanged(filmId, userId, false);
+        return withLike(stored, userId, false);
+    }
+
+    public FilmSummary addLikeSummary(int filmId, int userId) {
+        log.info("Запрос на лайк фильму " + filmId + " от " + userId + ", краткий ответ");
+        return changeLikeSummary(filmId, userId, true);
+    }
+
+    public FilmSummary removeLikeSummary(int filmId, int userId) {
+        log.info("Запрос на удаление лайка фильму " + filmId + " от " + userId + ", краткий ответ");
+        return changeLikeSummary(filmId, userId, false);
+    }
+
+    // Checks the ids exist instead of loading the film with its likes, and reads the like count after the write.
+    private FilmSummary changeLikeSummary(int filmId, int userId, boolean liked) {
+        if (!filmStorage.exists(filmId)) {
+            throw new FilmNotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        userService.checkUserExists(userId);
+        boolean changed;
+        if (likeQueue.isEnabled()) {
+            changed = likeQueue.enqueue(filmId, userId, liked, filmStorage.hasLike(filmId, userId));
+        } else if (liked) {
+            filmStorage.addLike(filmId, userId);
+            changed = true;
+        } else {
+            changed = filmStorage.removeLike(filmId, userId);
+        }
+        if (changed) {
+            onLikeChanged(filmId, userId, liked);
+        }
+        List<FilmSummary> summaries = likeQueue.applyPendingCounts(filmStorage.getFilmSummaries(List.of(filmId)));
+        if (summaries.isEmpty()) {
+            throw new FilmNotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        return summaries.get(0);
     }
 
     public Mpa getRating(int ratingId) {
@@ -85,9 +222,74 @@ public class FilmService {
 
     public List<Film> getPopularFilms(int count, String sortingOrder) {
         log.info("Запрошен список " + count + " популярных фильмов. Сортировка " + sortingOrder);
-        return filmStorage.getFilms().stream()
-                .sorted((f1, f2) -> new FilmComparator().compare(f1, f2, sortingOrder))
-                .limit(count)
-                .collect(Collectors.toList());
+        if (!popularityIndexEnabled) {
+            return likeQueue.applyPending(filmStorage.getPopularFilms(count, sortingOrder));
+        }
+        likeCounters.fold();
+        return likeQueue.applyPending(filmStorage.getFilms(popularityIndex.getTopFilmIds(count, sortingOrder)));
+    }
+
+    public List<FilmSummary> getPopularFilmSummaries(int count, String sortingOrder) {
+        log.info("Запрошены краткие описания " + count + " популярных фильмов. Сортировка " + sortingOrder);
+        if (!popularityIndexEnabled) {
+            return likeQueue.applyPendingCounts(filmStorage.getPopularFilmSummaries(count, sortingOrder));
+        }
+        likeCounters.fold();
+        return likeQueue.applyPendingCounts(
+                filmStorage.getFilmSummaries(popularityIndex.getTopFilmIds(count, sortingOrder)));
+    }
+
+    private Film enqueueLike(int filmId, int userId, boolean liked) {
+        Film stored = filmStorage.getFilm(filmId);
+        userService.checkUserExists(userId);
+        if (likeQueue.enqueue(filmId, userId, liked, stored.getLikes().contains(userId))) {
+            onLikeChanged(filmId, userId, liked);
+        }
+        return likeQueue.applyPending(stored);
+    }
+
+    public List<Film> searchFilms(String query, int limit) {
+        log.info("Поиск фильмов по запросу \"" + query + "\"");
+        return likeQueue.applyPending(filmStorage.getFilms(searchIndex.search(query, limit)));
+    }
+
+    public List<Film> getRecommendations(int userId, int limit) {
+        log.info("Запрошены рекомендации фильмов для пользователя " + userId);
+        userService.checkUserExists(userId);
+        return likeQueue.applyPending(filmStorage.getFilms(likeGraph.recommendFilms(userId, limit)));
+    }
+
+    // The response is the film read before the write with the like applied, instead of reading it again.
+    private static Film withLike(Film film, int userId, boolean liked) {
+        Film copy = Film.copyOf(film);
+        if (liked) {
+            copy.getLikes().add(userId);
+        } else {
+            copy.getLikes().remove(userId);
+        }
+        return copy;
+    }
+
+    // Also undoes queued likes the database rejected.
+    // The popularity index is not touched here: its lock is taken once per fold of the counters.
+    private void onLikeChanged(int filmId, int userId, boolean liked) {
+        if (liked) {
+            likeGraph.addLike(filmId, userId);
+        } else {
+            likeGraph.removeLike(filmId, userId);
+        }
+        if (popularityIndexEnabled) {
+            if (liked) {
+                likeCounters.increment(filmId);
+            } else {
+                likeCounters.decrement(filmId);
+            }
+        }
+    }
+
+    private void updatePopularityIndex(Film film) {
+        if (popularityIndexEnabled) {
+            popularityIndex.setLikeCount(film.getId(), film.getLikes().size());
+        }
     }
 }
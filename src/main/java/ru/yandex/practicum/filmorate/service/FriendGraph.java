@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.SortedIntSet;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage.FriendRequestConsumer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Friend requests as adjacency sets, for friend suggestions. Follows the semantics of the "friends" table:
+ * a user's friends are the users they sent a request to plus the users whose request they approved.
+ * Suggestions are users two hops away, ranked by the number of mutual friends.
+ */
+@Component
+public class FriendGraph {
+    private static final SortedIntSet NONE = new SortedIntSet();
+
+    private final Map<Integer, SortedIntSet> sent = new HashMap<>();
+
+    private final Map<Integer, SortedIntSet> received = new HashMap<>();
+
+    private final Map<Integer, SortedIntSet> approvedSent = new HashMap<>();
+
+    private final Map<Integer, SortedIntSet> approvedReceived = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int maxUserId;
+
+    /**
+     * Replaces the graph with the given friend requests.
+     */
+    public void rebuild(Consumer<FriendRequestConsumer> requests) {
+        lock.writeLock().lock();
+        try {
+            sent.clear();
+            received.clear();
+            approvedSent.clear();
+            approvedReceived.clear();
+            maxUserId = 0;
+            requests.accept((requestFrom, requestTo, approved) -> {
+                link(sent, received, requestFrom, requestTo);
+                if (approved) {
+                    link(approvedSent, approvedReceived, requestFrom, requestTo);
+                }
+            });
+            sent.values().forEach(SortedIntSet::trimToSize);
+            received.values().forEach(SortedIntSet::trimToSize);
+            approvedSent.values().forEach(SortedIntSet::trimToSize);
+            approvedReceived.values().forEach(SortedIntSet::trimToSize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addRequest(int requestFrom, int requestTo) {
+        lock.writeLock().lock();
+        try {
+            link(sent, received, requestFrom, requestTo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void approveRequest(int requestFrom, int requestTo) {
+        lock.writeLock().lock();
+        try {
+            if (sent.getOrDefault(requestFrom, NONE).contains(requestTo)) {
+                link(approvedSent, approvedReceived, requestFrom, requestTo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isApproved(int requestFrom, int requestTo) {
+        lock.readLock().lock();
+        try {
+            return approvedSent.getOrDefault(requestFrom, NONE).contains(requestTo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void removeRequest(int requestFrom, int requestTo) {
+        lock.writeLock().lock();
+        try {
+            unlink(sent, requestFrom, requestTo);
+            unlink(received, requestTo, requestFrom);
+            unlink(approvedSent, requestFrom, requestTo);
+            unlink(approvedReceived, requestTo, requestFrom);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} users who are not friends of the user, most mutual friends first;
+     * ties go to the lower id.
+     */
+    public List<Integer> suggestFriends(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] friends = friendsOf(userId);
+            if (friends.length == 0) {
+                return List.of();
+            }
+            int userCount = maxUserId + 1;
+            // a friend's followers are the users who have that friend too
+            int[] mutualFriends = IntStream.of(friends).parallel().collect(
+                    () -> new int[userCount],
+                    (counts, friendId) -> forEachUnion(received.getOrDefault(friendId, NONE),
+                            approvedSent.getOrDefault(friendId, NONE), otherId -> counts[otherId]++),
+                    DenseScores::addAll);
+            mutualFriends[userId] = 0;
+            for (int friendId : friends) {
+                mutualFriends[friendId] = 0;
+            }
+            return DenseScores.top(userCount, otherId -> mutualFriends[otherId], limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] friendsOf(int userId) {
+        int[] friends = new int[sent.getOrDefault(userId, NONE).size()
+                + approvedReceived.getOrDefault(userId, NONE).size()];
+        int[] size = new int[1];
+        forEachUnion(sent.getOrDefault(userId, NONE), approvedReceived.getOrDefault(userId, NONE),
+                friendId -> friends[size[0]++] = friendId);
+        return size[0] == friends.length ? friends : Arrays.copyOf(friends, size[0]);
+    }
+
+    private void link(Map<Integer, SortedIntSet> outgoing, Map<Integer, SortedIntSet> incoming,
+                      int requestFrom, int requestTo) {
+        outgoing.computeIfAbsent(requestFrom, id -> new SortedIntSet()).add(requestTo);
+        incoming.computeIfAbsent(requestTo, id -> new SortedIntSet()).add(requestFrom);
+        maxUserId = Math.max(maxUserId, Math.max(requestFrom, requestTo));
+    }
+
+    private static void unlink(Map<Integer, SortedIntSet> edges, int from, int to) {
+        SortedIntSet targets = edges.get(from);
+        if (targets != null && targets.remove(to) && targets.isEmpty()) {
+            edges.remove(from);
+        }
+    }
+
+    // Merges two sorted sets, passing ids present in both only once.
+    private static void forEachUnion(SortedIntSet first, SortedIntSet second, IntConsumer action) {
+        int i = 0;
+        int j = 0;
+        while (i < first.size() || j < second.size()) {
+            if (j == second.size() || (i < first.size() && first.getInt(i) < second.getInt(j))) {
+                action.accept(first.getInt(i++));
+            } else if (i == first.size() || second.getInt(j) < first.getInt(i)) {
+                action.accept(second.getInt(j++));
+            } else {
+                action.accept(first.getInt(i++));
+                j++;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.SortedIntSet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Likes as a bipartite graph, user -> films and film -> users, for collaborative filtering.
+ * Recommendations come from the {@code neighbours} users sharing the most liked films with the user:
+ * each film they liked and the user did not scores the number of shared films of every such neighbour.
+ * Both steps run as parallel streams over dense per-id arrays.
+ */
+@Component
+public class LikeGraph {
+    private final int neighbours;
+
+    private final Map<Integer, SortedIntSet> filmsByUser = new HashMap<>();
+
+    private final Map<Integer, SortedIntSet> usersByFilm = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int maxUserId;
+
+    private int maxFilmId;
+
+    @Autowired
+    public LikeGraph(@Value("${filmorate.recommendations.neighbours:100}") int neighbours) {
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Replaces the graph with the likes of the given films.
+     */
+    public void rebuild(Consumer<Consumer<Film>> films) {
+        lock.writeLock().lock();
+        try {
+            filmsByUser.clear();
+            usersByFilm.clear();
+            maxUserId = 0;
+            maxFilmId = 0;
+            films.accept(film -> film.getLikes().forEach(userId -> link(film.getId(), userId)));
+            filmsByUser.values().forEach(SortedIntSet::trimToSize);
+            usersByFilm.values().forEach(SortedIntSet::trimToSize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addLike(int filmId, int userId) {
+        lock.writeLock().lock();
+        try {
+            link(filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLike(int filmId, int userId) {
+        lock.writeLock().lock();
+        try {
+            unlink(filmsByUser, userId, filmId);
+            unlink(usersByFilm, filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} films the user has not liked, best first; ties go to the lower id.
+     */
+    public List<Integer> recommendFilms(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            SortedIntSet liked = filmsByUser.get(userId);
+            if (liked == null || liked.isEmpty()) {
+                return List.of();
+            }
+            int userCount = maxUserId + 1;
+            int[] sharedFilms = IntStream.of(liked.toIntArray()).parallel().collect(
+                    () -> new int[userCount],
+                    (counts, filmId) -> usersByFilm.get(filmId).forEachInt(otherId -> counts[otherId]++),
+                    DenseScores::addAll);
+            sharedFilms[userId] = 0;
+            List<Integer> nearest = DenseScores.top(userCount, otherId -> sharedFilms[otherId], neighbours);
+
+            int filmCount = maxFilmId + 1;
+            long[] scores = nearest.parallelStream().collect(
+                    () -> new long[filmCount],
+                    (sums, otherId) -> filmsByUser.get(otherId).forEachInt(filmId -> sums[filmId] += sharedFilms[otherId]),
+                    DenseScores::addAll);
+            liked.forEachInt(filmId -> scores[filmId] = 0);
+            return DenseScores.top(filmCount, filmId -> scores[filmId], limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(int filmId, int userId) {
+        filmsByUser.computeIfAbsent(userId, id -> new SortedIntSet()).add(filmId);
+        usersByFilm.computeIfAbsent(filmId, id -> new SortedIntSet()).add(userId);
+        maxUserId = Math.max(maxUserId, userId);
+        maxFilmId = Math.max(maxFilmId, filmId);
+    }
+
+    private static void unlink(Map<Integer, SortedIntSet> edges, int from, int to) {
+        SortedIntSet targets = edges.get(from);
+        if (targets != null && targets.remove(to) && targets.isEmpty()) {
+            edges.remove(from);
+        }
+    }
+}
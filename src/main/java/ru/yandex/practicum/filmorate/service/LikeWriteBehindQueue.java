@@ -0,0 +1,343 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.SortedIntSet;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for likes. Each (film, user) pair keeps only its latest requested state, so a like
+ * followed by an unlike cancels out before reaching the database. Pending changes are written in batches
+ * by a background thread every {@code flush-interval} or once {@code batch-size} pairs are pending. When
+ * {@code capacity} pairs are pending, the caller flushes synchronously. Everything left is flushed on shutdown.
+ * Pairs the database rejects are dropped and reported to the {@link DroppedLikeListener}.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehindQueue {
+    private final FilmStorage filmStorage;
+
+    private final boolean enabled;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final Duration flushInterval;
+
+    // film -> (user -> pending change)
+    private final ConcurrentMap<Integer, ConcurrentMap<Integer, Change>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flusher;
+
+    private volatile DroppedLikeListener droppedLikeListener = (filmId, userId, liked) -> {
+    };
+
+    @Autowired
+    public LikeWriteBehindQueue(FilmStorage filmStorage,
+                                @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    public static LikeWriteBehindQueue disabled() {
+        return new LikeWriteBehindQueue(null, false, 0, 0, Duration.ZERO);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "like-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flush();
+            log.info("Очередь лайков сброшена при остановке");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public void setDroppedLikeListener(DroppedLikeListener droppedLikeListener) {
+        this.droppedLikeListener = droppedLikeListener;
+    }
+
+    /**
+     * Queues a like or unlike. {@code persistedLiked} is whether the like is stored in the database,
+     * as read by the caller. Throws {@link DuplicateKeyException} for a repeated like, like the database does.
+     *
+     * @return whether the like state of the pair changed
+     */
+    public boolean enqueue(int filmId, int userId, boolean liked, boolean persistedLiked) {
+        if (pendingCount.get() >= capacity) {
+            log.info("Очередь лайков заполнена, синхронный сброс");
+            flush();
+        }
+        boolean[] changed = new boolean[1];
+        // Film maps are created and removed under the lock of their key, so a change is never put into a removed map.
+        pending.compute(filmId, (key, changes) -> {
+            ConcurrentMap<Integer, Change> filmChanges = changes != null ? changes : new ConcurrentHashMap<>();
+            filmChanges.compute(userId, (id, current) -> {
+                boolean currentlyLiked = current == null ? persistedLiked : current.liked;
+                if (liked && currentlyLiked) {
+                    throw new DuplicateKeyException("Пользователь " + userId + " уже поставил лайк фильму " + filmId);
+                }
+                changed[0] = liked != currentlyLiked;
+                if (!changed[0]) {
+                    return current;
+                }
+                if (current == null) {
+                    pendingCount.incrementAndGet();
+                    return new Change(persistedLiked, liked, false);
+                }
+                // The change being written will be persisted, so undoing it needs a write of its own.
+                if (current.inFlight) {
+                    return new Change(current.liked, liked, false);
+                }
+                if (current.persistedLiked == liked) {
+                    pendingCount.decrementAndGet();
+                    return null;
+                }
+                return new Change(current.persistedLiked, liked, false);
+            });
+            return filmChanges.isEmpty() ? null : filmChanges;
+        });
+        if (pendingCount.get() >= batchSize && flusher != null && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+        return changed[0];
+    }
+
+    /**
+     * Returns the film with pending likes and unlikes applied. The film passed in is not modified,
+     * since it may be shared by the entity cache.
+     */
+    public Film applyPending(Film film) {
+        Map<Integer, Change> changes = pending.get(film.getId());
+        if (changes == null || changes.isEmpty()) {
+            return film;
+        }
+        Film copy = Film.copyOf(film);
+        changes.forEach((userId, change) -> {
+            if (change.liked) {
+                copy.getLikes().add(userId);
+            } else {
+                copy.getLikes().remove(userId);
+            }
+        });
+        return copy;
+    }
+
+    public List<Film> applyPending(List<Film> films) {
+        if (pendingCount.get() == 0) {
+            return films;
+        }
+        return films.stream()
+                .map(this::applyPending)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds pending likes to and subtracts pending unlikes from the like counts of the summaries, in place.
+     * A pending pair always differs from its persisted state, so each one moves the count by one.
+     */
+    public List<FilmSummary> applyPendingCounts(List<FilmSummary> films) {
+        if (pendingCount.get() == 0) {
+            return films;
+        }
+        for (FilmSummary film : films) {
+            Map<Integer, Change> changes = pending.get(film.getId());
+            if (changes != null) {
+                changes.values().forEach(change -> film.setLikeCount(film.getLikeCount() + (change.liked ? 1 : -1)));
+            }
+        }
+        return films;
+    }
+
+    /**
+     * Writes every change pending at the time of the call, {@code batch-size} pairs per transaction.
+     * Taken changes are marked in flight until written.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            List<Map.Entry<Long, Change>> batch = new ArrayList<>(batchSize);
+            for (Map.Entry<Integer, ConcurrentMap<Integer, Change>> filmChanges : pending.entrySet()) {
+                for (Integer userId : filmChanges.getValue().keySet()) {
+                    Change taken = filmChanges.getValue().computeIfPresent(userId,
+                            (id, current) -> new Change(current.persistedLiked, current.liked, true));
+                    if (taken == null) {
+                        continue;
+                    }
+                    batch.add(Map.entry(pairKey(filmChanges.getKey(), userId), taken));
+                    if (batch.size() == batchSize) {
+                        write(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка сброса очереди лайков", e);
+        }
+    }
+
+    // A batch rejected by a constraint (e.g. the film was deleted) is retried pair by pair and the offending
+    // pairs are dropped. Other errors leave the batch pending for the next flush.
+    private void write(List<Map.Entry<Long, Change>> batch) {
+        try {
+            applyLikes(batch);
+            batch.forEach(this::markWritten);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Пакет из " + batch.size() + " лайков не записан, запись по одному: " + e.getMessage());
+            for (Map.Entry<Long, Change> change : batch) {
+                try {
+                    applyLikes(List.of(change));
+                    markWritten(change);
+                } catch (DataIntegrityViolationException single) {
+                    log.error("Лайк фильму " + filmId(change.getKey()) + " от " + userId(change.getKey())
+                            + " не записан: " + single.getMessage());
+                    markDropped(change);
+                }
+            }
+        }
+    }
+
+    private void applyLikes(List<Map.Entry<Long, Change>> batch) {
+        Map<Integer, Set<Integer>> added = new HashMap<>();
+        Map<Integer, Set<Integer>> removed = new HashMap<>();
+        for (Map.Entry<Long, Change> change : batch) {
+            Map<Integer, Set<Integer>> target = change.getValue().liked ? added : removed;
+            target.computeIfAbsent(filmId(change.getKey()), id -> new SortedIntSet()).add(userId(change.getKey()));
+        }
+        filmStorage.applyLikes(added, removed);
+    }
+
+    // The pair is dropped unless it changed again while being written; then the written state becomes persisted.
+    private void markWritten(Map.Entry<Long, Change> written) {
+        Change writtenChange = written.getValue();
+        pending.computeIfPresent(filmId(written.getKey()), (key, changes) -> {
+            changes.computeIfPresent(userId(written.getKey()), (id, current) -> {
+                if (current == writtenChange || current.liked == writtenChange.liked) {
+                    pendingCount.decrementAndGet();
+                    return null;
+                }
+                return new Change(writtenChange.liked, current.liked, false);
+            });
+            return changes.isEmpty() ? null : changes;
+        });
+    }
+
+    // The pair is removed along with any later change to it, since the database keeps its persisted state.
+    // A pair missing here was cancelled against the rejected change, so the caller last saw that change.
+    private void markDropped(Map.Entry<Long, Change> dropped) {
+        Change droppedChange = dropped.getValue();
+        int filmId = filmId(dropped.getKey());
+        int userId = userId(dropped.getKey());
+        boolean[] lastLiked = {droppedChange.liked};
+        pending.computeIfPresent(filmId, (key, changes) -> {
+            Change current = changes.remove(userId);
+            if (current != null) {
+                pendingCount.decrementAndGet();
+                lastLiked[0] = current.liked;
+            }
+            return changes.isEmpty() ? null : changes;
+        });
+        if (lastLiked[0] != droppedChange.persistedLiked) {
+            droppedLikeListener.onDropped(filmId, userId, lastLiked[0]);
+        }
+    }
+
+    private static long pairKey(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xffffffffL);
+    }
+
+    private static int filmId(long pairKey) {
+        return (int) (pairKey >>> 32);
+    }
+
+    private static int userId(long pairKey) {
+        return (int) pairKey;
+    }
+
+    /**
+     * Called for a pair whose change could not be written, with the like state the caller was last told about.
+     */
+    @FunctionalInterface
+    public interface DroppedLikeListener {
+        void onDropped(int filmId, int userId, boolean liked);
+    }
+
+    private static final class Change {
+        private final boolean persistedLiked;
+        private final boolean liked;
+        // taken by a flush that has not marked it written yet
+        private final boolean inFlight;
+
+        private Change(boolean persistedLiked, boolean liked, boolean inFlight) {
+            this.persistedLiked = persistedLiked;
+            this.liked = liked;
+            this.inFlight = inFlight;
+        }
+    }
+}
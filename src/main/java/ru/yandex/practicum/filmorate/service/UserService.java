@@ -2,24 +2,36 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.Exception.FriendNotFoundException;
 import ru.yandex.practicum.filmorate.Exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.storage.Constants.IMPORT_CHUNK_SIZE;
 
 @Service
 @Slf4j
 public class UserService {
     private final UserStorage userStorage;
 
+    private final FriendGraph friendGraph;
+
     @Autowired
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage) {
+    public UserService(UserStorage userStorage, FriendGraph friendGraph) {
         this.userStorage = userStorage;
+        this.friendGraph = friendGraph;
+    }
+
+    @PostConstruct
+    public void rebuildFriendGraph() {
+        log.info("Построение графа дружбы для рекомендаций друзей");
+        friendGraph.rebuild(userStorage::forEachFriendRequest);
     }
 
     public User addUser(User user) {
@@ -27,6 +39,15 @@ public class UserService {
         return userStorage.addUser(user);
     }
 
+    public List<Integer> addUsers(List<User> users) {
+        log.info("Запрос на добавление " + users.size() + " пользователей");
+        List<Integer> ids = new ArrayList<>(users.size());
+        for (int from = 0; from < users.size(); from += IMPORT_CHUNK_SIZE) {
+            ids.addAll(userStorage.addUsers(users.subList(from, Math.min(from + IMPORT_CHUNK_SIZE, users.size()))));
+        }
+        return ids;
+    }
+
     public User updateUser(User user) {
         log.info("Запрос на обновление пользователя " + user.getLogin());
         return userStorage.updateUser(user);
@@ -37,31 +58,66 @@ public class UserService {
         return userStorage.getUsers();
     }
 
+    public List<User> getUsers(int afterId, int limit) {
+        log.info("Запрос на получение " + limit + " пользователей после id = " + afterId);
+        return userStorage.getUsers(afterId, limit);
+    }
+
+    public void streamUsers(Consumer<User> consumer) {
+        log.info("Запрос на потоковую выгрузку всех пользователей");
+        userStorage.forEachUser(consumer);
+    }
+
     public User getUser(int userId) {
         log.info("Запрошен пользователь с id = " + userId);
         return userStorage.getUser(userId);
     }
 
+    /**
+     * Throws {@link UserNotFoundException} unless the user exists; does not load the user.
+     */
+    public void checkUserExists(int userId) {
+        if (!userStorage.exists(userId)) {
+            throw new UserNotFoundException("Пользователь с id " + userId + " не найден");
+        }
+    }
+
+    private void checkUsersExist(int userId, int otherUserId) {
+        if (!userStorage.existsAll(List.of(userId, otherUserId))) {
+            throw new UserNotFoundException("Пользователь с id " + userId + " или " + otherUserId + " не найден");
+        }
+    }
+
     public User addFriend(int userId, int friendId) {
         log.info("Запрос на добавление в друзья от " + userId + " к " + friendId);
-        userStorage.getUser(userId);
-        userStorage.getUser(friendId);
-        return userStorage.addFriend(userId, friendId);
+        User user = User.copyOf(userStorage.getUser(userId));
+        checkUserExists(friendId);
+        userStorage.addFriend(userId, friendId);
+        friendGraph.addRequest(userId, friendId);
+        user.getFriends().add(friendId);
+        return user;
     }
 
     public User removeFriend(int userId, int friendId) {
         log.info("Запрос на удаление из друзей от " + userId + " в отношении " + friendId);
-        userStorage.getUser(userId);
-        User friend = userStorage.getUser(friendId);
-        if (!getUserFriends(userId).contains(friend)) {
+        User user = User.copyOf(userStorage.getUser(userId));
+        checkUserExists(friendId);
+        if (!user.getFriends().contains(friendId)) {
             throw new FriendNotFoundException("Друг с таким id не найден");
         }
-        return userStorage.removeFriend(userId, friendId);
+        if (userStorage.removeFriend(userId, friendId)) {
+            friendGraph.removeRequest(userId, friendId);
+            // still a friend if the other user's request to this one was approved
+            if (!friendGraph.isApproved(friendId, userId)) {
+                user.getFriends().remove(friendId);
+            }
+        }
+        return user;
     }
 
     public List<User> getUserFriends(int userId) {
         log.info("Запрошен список друзей пользователя с id = " + userId);
-        userStorage.getUser(userId);
+        checkUserExists(userId);
         return userStorage.getUserFriends(userId);
     }
 
@@ -70,18 +126,21 @@ public class UserService {
         User user = userStorage.getUser(requestFrom);
         if (user.getFriends().contains(requestTo)) {
             userStorage.approveFriend(requestFrom, requestTo);
+            friendGraph.approveRequest(requestFrom, requestTo);
         } else {
             throw new UserNotFoundException("Id не был найден в списке друзей");
         }
     }
 
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        log.info("Запрошены рекомендации друзей для пользователя с id = " + userId);
+        checkUserExists(userId);
+        return userStorage.getUsers(friendGraph.suggestFriends(userId, limit));
+    }
+
     public List<User> getCommonFriends(int user1, int user2) {
         log.info("Запрошены общие друзья пользователей " + user1 + " и " + user2);
-        List<Integer> commonUserIds = getUser(user1).getFriends().stream()
-                .filter(getUser(user2).getFriends()::contains)
-                .collect(Collectors.toList());
-        return userStorage.getUsers().stream()
-                .filter(user -> commonUserIds.contains(user.getId()))
-                .collect(Collectors.toList());
+        checkUsersExist(user1, user2);
+        return userStorage.getCommonFriends(user1, user2);
     }
 }
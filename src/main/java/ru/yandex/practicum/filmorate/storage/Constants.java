@@ -11,4 +11,10 @@ public class Constants {
     public static final String DESCENDING_ORDER = "desc";
     public static final String ASCENDING_ORDER = "asc";
     public static final Set<String> SORTS = Set.of(ASCENDING_ORDER, DESCENDING_ORDER);
+    public static final String FULL_VIEW = "full";
+    public static final String SUMMARY_VIEW = "summary";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int IMPORT_CHUNK_SIZE = 1000;
+    public static final int MAX_IMPORT_SIZE = 10000;
 }
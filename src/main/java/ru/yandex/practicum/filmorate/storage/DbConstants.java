@@ -37,6 +37,8 @@ public class DbConstants {
     public static final String SQL_INSERT_LIKE = "INSERT INTO \"likes\" (\"film_id\", \"user_id\", \"created_at\") "
             + "VALUES (?, ?, CURRENT_TIMESTAMP())\n";
     public static final String SQL_DELETE_LIKE = "DELETE FROM \"likes\" WHERE \"film_id\" = ? AND \"user_id\" = ?";
+    public static final String SQL_LIKE_EXISTS = "select exists(select 1 from \"likes\" "
+            + "where \"film_id\" = ? and \"user_id\" = ?)";
     public static final String SQL_SELECT_LIKES_BY_FILM_ID = "select \"user_id\" "
             + "from \"likes\" "
             + "where \"film_id\" = ?";
@@ -46,6 +48,68 @@ public class DbConstants {
             + "WHERE f.\"film_id\" = ?\n"
             + "ORDER BY f.\"id\" ASC ";
     public static final String SQL_DELETE_FILM_GENRES_BY_FILM_ID = "DELETE FROM \"film_genres\" WHERE \"film_id\" = ?";
+    public static final String SQL_DELETE_FILM_GENRE = "DELETE FROM \"film_genres\" "
+            + "WHERE \"film_id\" = ? AND \"genre_id\" = ?";
+    public static final String SQL_SELECT_ALL_FILM_IDS = "select \"id\" from \"films\"";
+    public static final String SQL_FILM_EXISTS = "select exists(select 1 from \"films\" where \"id\" = ?)";
+    public static final String SQL_COUNT_FILMS_BY_IDS = "select count(*) from \"films\" where \"id\" in (%s)";
+    public static final String SQL_SELECT_FILMS_BY_IDS = SQL_SELECT_ALL_FILMS + " where \"id\" in (%s)";
+    public static final String SQL_SELECT_ALL_FILM_SUMMARIES = "select "
+            + "\"id\", "
+            + "\"title\", "
+            + "\"description\", "
+            + "\"release_date\", "
+            + "\"duration\", "
+            + "\"rating_id\", "
+            + "\"like_count\" "
+            + "from \"films\"";
+    public static final String SQL_SELECT_FILM_SUMMARIES_BY_IDS = SQL_SELECT_ALL_FILM_SUMMARIES
+            + " where \"id\" in (%s)";
+    public static final String SQL_SELECT_FILM_SUMMARIES_PAGE = SQL_SELECT_ALL_FILM_SUMMARIES
+            + " where \"id\" > ? order by \"id\" limit ?";
+    public static final String SQL_SELECT_POPULAR_FILM_SUMMARIES_DESC = SQL_SELECT_ALL_FILM_SUMMARIES
+            + " order by \"like_count\" desc, \"id\" asc limit ?";
+    public static final String SQL_SELECT_POPULAR_FILM_SUMMARIES_ASC = SQL_SELECT_ALL_FILM_SUMMARIES
+            + " order by \"like_count\" asc, \"id\" asc limit ?";
+    public static final String SQL_SELECT_FILM_LIKE_COUNTS = "select \"id\", \"like_count\" from \"films\"";
+    public static final String SQL_SELECT_POPULAR_FILMS_DESC = SQL_SELECT_ALL_FILMS
+            + " order by \"like_count\" desc, \"id\" asc limit ?";
+    public static final String SQL_SELECT_POPULAR_FILMS_ASC = SQL_SELECT_ALL_FILMS
+            + " order by \"like_count\" asc, \"id\" asc limit ?";
+    public static final String SQL_INCREMENT_LIKE_COUNT = "update \"films\" set \"like_count\" = \"like_count\" + 1 "
+            + "where \"id\" = ?";
+    public static final String SQL_DECREMENT_LIKE_COUNT = "update \"films\" set \"like_count\" = \"like_count\" - 1 "
+            + "where \"id\" = ?";
+    public static final String SQL_INSERT_LIKE_IF_ABSENT = "INSERT INTO \"likes\" (\"film_id\", \"user_id\", \"created_at\") "
+            + "SELECT ?, ?, CURRENT_TIMESTAMP() WHERE NOT EXISTS "
+            + "(SELECT 1 FROM \"likes\" WHERE \"film_id\" = ? AND \"user_id\" = ?)";
+    public static final String SQL_RECOUNT_LIKES = "update \"films\" set \"like_count\" = "
+            + "(select count(*) from \"likes\" where \"film_id\" = ?) where \"id\" = ?";
+    public static final String SQL_SELECT_FILMS_PAGE = SQL_SELECT_ALL_FILMS
+            + " where \"id\" > ? order by \"id\" limit ?";
+    public static final String SQL_SELECT_ALL_FILMS_ORDERED = SQL_SELECT_ALL_FILMS + " order by \"id\"";
+    public static final String SQL_SELECT_ALL_LIKES_ORDERED = "select \"film_id\", \"user_id\" "
+            + "from \"likes\" "
+            + "order by \"film_id\", \"user_id\"";
+    public static final String SQL_SELECT_ALL_FILM_GENRES_ORDERED = "SELECT f.\"film_id\", g.\"id\", g.\"name\" \n"
+            + "FROM \"film_genres\" f \n" + "LEFT JOIN \"genres\" g  \n"
+            + "ON f.\"genre_id\" = g.\"id\"\n"
+            + "ORDER BY f.\"film_id\" ASC, f.\"id\" ASC ";
+    public static final String SQL_SELECT_ALL_LIKES = "select \"film_id\", \"user_id\" from \"likes\" "
+            + "order by \"film_id\", \"user_id\"";
+    public static final String SQL_SELECT_LIKES_BY_FILM_IDS = "select \"film_id\", \"user_id\" "
+            + "from \"likes\" "
+            + "where \"film_id\" in (%s) "
+            + "order by \"film_id\", \"user_id\"";
+    public static final String SQL_SELECT_ALL_FILM_GENRES = "SELECT f.\"film_id\", g.\"id\", g.\"name\" \n"
+            + "FROM \"film_genres\" f \n" + "LEFT JOIN \"genres\" g  \n"
+            + "ON f.\"genre_id\" = g.\"id\"\n"
+            + "ORDER BY f.\"id\" ASC ";
+    public static final String SQL_SELECT_FILM_GENRES_BY_FILM_IDS = "SELECT f.\"film_id\", g.\"id\", g.\"name\" \n"
+            + "FROM \"film_genres\" f \n" + "LEFT JOIN \"genres\" g  \n"
+            + "ON f.\"genre_id\" = g.\"id\"\n"
+            + "WHERE f.\"film_id\" in (%s)\n"
+            + "ORDER BY f.\"id\" ASC ";
 
     public static final String SQL_INSERT_USER = "INSERT INTO \"users\" (\"email\", \"login\", \"name\", \"birthday\") " +
             "VALUES(?, ?, ?, ?);";
@@ -68,6 +132,19 @@ public class DbConstants {
             "\"name\"," +
             "\"birthday\"" +
             " from \"users\" where \"id\" = ?";
+    public static final String SQL_SELECT_USERS_PAGE = SQL_SELECT_ALL_USERS
+            + " where \"id\" > ? order by \"id\" limit ?";
+    public static final String SQL_SELECT_ALL_USER_IDS = "select \"id\" from \"users\"";
+    public static final String SQL_USER_EXISTS = "select exists(select 1 from \"users\" where \"id\" = ?)";
+    public static final String SQL_COUNT_USERS_BY_IDS = "select count(*) from \"users\" where \"id\" in (%s)";
+    public static final String SQL_SELECT_USERS_BY_IDS = SQL_SELECT_ALL_USERS + " where \"id\" in (%s)";
+    public static final String SQL_SELECT_ALL_USERS_ORDERED = SQL_SELECT_ALL_USERS + " order by \"id\"";
+    public static final String SQL_SELECT_FRIEND_REQUESTS_ORDERED = "SELECT \"user_id\", \"friend_id\" " +
+            "FROM \"friends\" ORDER BY \"user_id\"";
+    public static final String SQL_SELECT_APPROVED_FRIEND_REQUESTS_ORDERED = "SELECT \"user_id\", \"friend_id\" " +
+            "FROM \"friends\" WHERE \"request_status\" = true ORDER BY \"friend_id\"";
+    public static final String SQL_SELECT_ALL_FRIEND_REQUESTS = "SELECT \"user_id\", \"friend_id\", " +
+            "\"request_status\" FROM \"friends\"";
     public static final String SQL_INSERT_FRIEND = "INSERT INTO \"friends\" "
             + "(\"user_id\", \"friend_id\", \"request_status\", \"created_at\")"
             + " VALUES (?, ?, false, CURRENT_TIMESTAMP());";
@@ -81,6 +158,21 @@ public class DbConstants {
 
     public static final String SQL_SELECT_USER_FRIENDS = "SELECT \"id\", \"email\", \"login\", \"name\", \"birthday\" " +
             "FROM \"users\" WHERE \"id\" IN (\n" +
-            "SELECT DISTINCT CASE WHEN \"user_id\" = ? THEN \"friend_id\" ELSE \"user_id\" END AS \"friends_ids\"\n" +
-            "FROM \"friends\" WHERE \"user_id\" = ? OR (\"friend_id\" = ? AND \"request_status\" = true))";
+            "SELECT \"friend_id\" FROM \"friends\" WHERE \"user_id\" = ?\n" +
+            "UNION SELECT \"user_id\" FROM \"friends\" WHERE \"friend_id\" = ? AND \"request_status\" = true)";
+    public static final String SQL_SELECT_ALL_FRIEND_EDGES = "SELECT \"user_id\", \"friend_id\" FROM \"friends\"\n" +
+            "UNION ALL SELECT \"friend_id\", \"user_id\" FROM \"friends\" WHERE \"request_status\" = true";
+    public static final String SQL_SELECT_FRIEND_EDGES_BY_USER_IDS = "SELECT \"user_id\", \"friend_id\" " +
+            "FROM \"friends\" WHERE \"user_id\" IN (%1$s)\n" +
+            "UNION ALL SELECT \"friend_id\", \"user_id\" " +
+            "FROM \"friends\" WHERE \"friend_id\" IN (%1$s) AND \"request_status\" = true";
+
+    public static final String SQL_SELECT_COMMON_FRIENDS = "SELECT \"id\", \"email\", \"login\", \"name\", \"birthday\" " +
+            "FROM \"users\" WHERE \"id\" IN (\n" +
+            "SELECT \"friend_id\" FROM \"friends\" WHERE \"user_id\" = ?\n" +
+            "UNION SELECT \"user_id\" FROM \"friends\" WHERE \"friend_id\" = ? AND \"request_status\" = true)\n" +
+            "AND \"id\" IN (\n" +
+            "SELECT \"friend_id\" FROM \"friends\" WHERE \"user_id\" = ?\n" +
+            "UNION SELECT \"user_id\" FROM \"friends\" WHERE \"friend_id\" = ? AND \"request_status\" = true)\n" +
+            "ORDER BY \"id\"";
 }
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+public class EntityCache<T> {
+    private final Cache<Integer, T> cache;
+
+    public EntityCache(boolean enabled, long maximumSize, Duration expireAfterWrite) {
+        if (enabled) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .recordStats()
+                    .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    public static <T> EntityCache<T> disabled() {
+        return new EntityCache<>(false, 0, Duration.ZERO);
+    }
+
+    public T get(int id, Function<Integer, T> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        return cache.get(id, loader);
+    }
+
+    public T getIfPresent(int id) {
+        return cache == null ? null : cache.getIfPresent(id);
+    }
+
+    public boolean contains(int id) {
+        return getIfPresent(id) != null;
+    }
+
+    /**
+     * Replaces a cached entry with {@code update} applied to it; a missing entry stays missing.
+     * Entries are shared with readers, so {@code update} must return a copy rather than modify its argument.
+     * Inside a transaction the update is applied again after commit, so it must be idempotent,
+     * and the entry is dropped after rollback.
+     */
+    public void update(int id, UnaryOperator<T> update) {
+        if (cache != null) {
+            cache.asMap().computeIfPresent(id, (key, value) -> update.apply(value));
+            afterCompletion(committed -> {
+                if (committed) {
+                    cache.asMap().computeIfPresent(id, (key, value) -> update.apply(value));
+                } else {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the entry now and, inside a transaction, once more after it completes: a concurrent read
+     * before the commit may have cached the old row.
+     */
+    public void invalidate(int id) {
+        if (cache != null) {
+            cache.invalidate(id);
+            afterCompletion(committed -> cache.invalidate(id));
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    public void bindTo(MeterRegistry registry, String cacheName) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, cacheName);
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        }
+    }
+}
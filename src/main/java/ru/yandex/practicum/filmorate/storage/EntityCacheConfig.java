@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+
+@Configuration
+public class EntityCacheConfig {
+    @Value("${filmorate.cache.entities.enabled:false}")
+    private boolean enabled;
+
+    @Value("${filmorate.cache.entities.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${filmorate.cache.entities.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Bean
+    public EntityCache<Film> filmCache() {
+        return new EntityCache<>(enabled, maximumSize, expireAfterWrite);
+    }
+
+    @Bean
+    public EntityCache<User> userCache() {
+        return new EntityCache<>(enabled, maximumSize, expireAfterWrite);
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(EntityCache<Film> filmCache, EntityCache<User> userCache) {
+        return registry -> {
+            filmCache.bindTo(registry, "films");
+            userCache.bindTo(registry, "users");
+        };
+    }
+}
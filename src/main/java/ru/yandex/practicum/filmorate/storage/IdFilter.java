@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ids known to exist, as one bit per id over the dense ids generated by the database. A clear bit means
+ * the id does not exist, so lookups of unknown ids are rejected without a query; a set bit still goes to
+ * the database. Writers are serialized, readers never lock. Assumes this application is the only writer
+ * of the table; a disabled filter lets every id through.
+ */
+public class IdFilter {
+    private final boolean enabled;
+
+    private volatile AtomicLongArray words = new AtomicLongArray(0);
+
+    public IdFilter(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static IdFilter disabled() {
+        return new IdFilter(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean mightContain(int id) {
+        if (!enabled) {
+            return true;
+        }
+        AtomicLongArray current = words;
+        int index = id >>> 6;
+        return id >= 0 && index < current.length() && (current.get(index) & (1L << id)) != 0;
+    }
+
+    public synchronized void add(int id) {
+        if (!enabled || id < 0) {
+            return;
+        }
+        int index = id >>> 6;
+        AtomicLongArray current = words;
+        if (index >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(index + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            // the bit is set before the new array is published
+            grown.set(index, 1L << id);
+            words = grown;
+        } else {
+            current.set(index, current.get(index) | (1L << id));
+        }
+    }
+
+    public synchronized void remove(int id) {
+        AtomicLongArray current = words;
+        int index = id >>> 6;
+        if (id >= 0 && index < current.length()) {
+            current.set(index, current.get(index) & ~(1L << id));
+        }
+    }
+}
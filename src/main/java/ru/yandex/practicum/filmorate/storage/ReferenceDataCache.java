@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class ReferenceDataCache implements MeterBinder {
+    private static final String ALL = "all";
+
+    private final Cache<Integer, Genre> genres;
+    private final Cache<String, List<Genre>> allGenres;
+    private final Cache<Integer, Mpa> ratings;
+    private final Cache<String, List<Mpa>> allRatings;
+
+    @Autowired
+    public ReferenceDataCache(@Value("${filmorate.cache.reference.maximum-size:100}") long maximumSize) {
+        genres = newCache(maximumSize);
+        allGenres = newCache(1);
+        ratings = newCache(maximumSize);
+        allRatings = newCache(1);
+    }
+
+    public Genre getGenre(int genreId, Function<Integer, Genre> loader) {
+        return genres.get(genreId, loader);
+    }
+
+    public List<Genre> getAllGenres(Supplier<List<Genre>> loader) {
+        return allGenres.get(ALL, key -> List.copyOf(loader.get()));
+    }
+
+    public Mpa getRating(int ratingId, Function<Integer, Mpa> loader) {
+        return ratings.get(ratingId, loader);
+    }
+
+    public List<Mpa> getAllRatings(Supplier<List<Mpa>> loader) {
+        return allRatings.get(ALL, key -> List.copyOf(loader.get()));
+    }
+
+    public void invalidateAll() {
+        genres.invalidateAll();
+        allGenres.invalidateAll();
+        ratings.invalidateAll();
+        allRatings.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return genres.stats()
+                .plus(allGenres.stats())
+                .plus(ratings.stats())
+                .plus(allRatings.stats());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, genres, "genres");
+        CaffeineCacheMetrics.monitor(registry, allGenres, "allGenres");
+        CaffeineCacheMetrics.monitor(registry, ratings, "ratings");
+        CaffeineCacheMetrics.monitor(registry, allRatings, "allRatings");
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maximumSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+}
@@ -1,36 +1,90 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.Exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.Exception.GenreNotFoundException;
 import ru.yandex.practicum.filmorate.Exception.RatingNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.IdFilter;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
+import javax.annotation.PostConstruct;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
 import static ru.yandex.practicum.filmorate.storage.DbConstants.*;
 
 @Component("filmDbStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db", matchIfMissing = true)
 public class FilmDbStorage implements FilmStorage {
+    private static final int IN_LIST_BATCH_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final ReferenceDataCache referenceDataCache;
+
+    private final EntityCache<Film> filmCache;
+
+    private final IdFilter idFilter;
+
+    public FilmDbStorage(JdbcTemplate jdbcTemplate,
+                         ReferenceDataCache referenceDataCache,
+                         EntityCache<Film> filmCache) {
+        this(jdbcTemplate, referenceDataCache, filmCache, false);
+    }
+
     @Autowired
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate,
+                         ReferenceDataCache referenceDataCache,
+                         EntityCache<Film> filmCache,
+                         @Value("${filmorate.id-filter.enabled:true}") boolean idFilterEnabled) {
         this.jdbcTemplate = jdbcTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.filmCache = filmCache;
+        this.idFilter = new IdFilter(idFilterEnabled);
+    }
+
+    @PostConstruct
+    public void loadIds() {
+        if (idFilter.isEnabled()) {
+            jdbcTemplate.query(SQL_SELECT_ALL_FILM_IDS, rs -> {
+                idFilter.add(rs.getInt("id"));
+            });
+        }
     }
 
     @Override
+    @Transactional
     public Film addFilm(Film film) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(connection -> {
@@ -46,20 +100,69 @@ public class FilmDbStorage implements FilmStorage {
             throw new RuntimeException("Что-то пошло не так при получении ключа созданной записи");
         } else {
             film.setId((Integer) keyHolder.getKey());
-            addFilmGenres(film);
-            return getFilm(film.getId());
+            idFilter.add(film.getId());
+            addFilmGenres(List.of(film));
+            resolveReferences(film);
+            film.setLikes(null);
+            return film;
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> addFilms(List<Film> films) {
+        List<Integer> ids = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_FILM, Statement.RETURN_GENERATED_KEYS)) {
+                for (Film film : films) {
+                    ps.setString(1, film.getName());
+                    ps.setString(2, film.getDescription());
+                    ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                    ps.setInt(4, film.getDuration());
+                    ps.setInt(5, film.getMpa().getId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                return readGeneratedKeys(ps, films.size());
+            }
+        });
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(ids.get(i));
+            idFilter.add(ids.get(i));
+        }
+        addFilmGenres(films);
+        return ids;
+    }
+
+    private static List<Integer> readGeneratedKeys(PreparedStatement ps, int expected) throws SQLException {
+        List<Integer> ids = new ArrayList<>(expected);
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getInt(1));
+            }
+        }
+        if (ids.size() != expected) {
+            throw new RuntimeException("Что-то пошло не так при получении ключей созданных записей");
         }
+        return ids;
     }
 
-    private void addFilmGenres(Film film) {
-        List<Genre> distinctGenres = film.getGenres().stream().distinct().collect(Collectors.toList());
-        for (Genre genre : distinctGenres) {
-            jdbcTemplate.update(SQL_INSERT_FILM_GENRES, film.getId(), genre.getId());
+    private void addFilmGenres(List<Film> films) {
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Film film : films) {
+            film.getGenres().stream()
+                    .distinct()
+                    .forEach(genre -> batchArgs.add(new Object[]{film.getId(), genre.getId()}));
+        }
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERT_FILM_GENRES, batchArgs);
         }
     }
 
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
+        Film previous = filmCache.getIfPresent(film.getId());
+        // The film row stays locked until commit, so concurrent updates of a film apply their genre diffs in turn.
         int rowCount = jdbcTemplate.update(SQL_UPDATE_FILM,
                 film.getName(),
                 film.getDescription(),
@@ -67,35 +170,285 @@ public class FilmDbStorage implements FilmStorage {
                 film.getDuration(),
                 film.getMpa().getId(),
                 film.getId());
+        filmCache.invalidate(film.getId());
         if (rowCount == 0) {
-            return film;
+            throw new FilmNotFoundException("Фильм с id " + film.getId() + " не найден");
+        }
+        boolean genresReplaced = !film.getGenres().isEmpty();
+        resolveReferences(film);
+        if (genresReplaced) {
+            film.setGenres(updateFilmGenres(film.getId(), film.getGenres()));
+        } else if (previous != null) {
+            film.setGenres(new ArrayList<>(previous.getGenres()));
+        } else {
+            film.setGenres(loadFilmGenres(film.getId()));
+        }
+        if (previous != null) {
+            film.setLikes(previous.getLikes());
+        } else {
+            film.setLikes(new HashSet<>(jdbcTemplate.queryForList(SQL_SELECT_LIKES_BY_FILM_ID, Integer.class,
+                    film.getId())));
         }
-        updateFilmGenres(film);
-        return getFilm(film.getId());
+        return film;
+    }
+
+    // The film as it is read back: rating and genres with their names, each genre once, in request order.
+    private void resolveReferences(Film film) {
+        film.setMpa(getRating(film.getMpa().getId()));
+        film.setGenres(film.getGenres().stream()
+                .map(Genre::getId)
+                .distinct()
+                .map(this::getGenre)
+                .collect(Collectors.toCollection(ArrayList::new)));
     }
 
     @Override
     public List<Film> getFilms() {
-        return jdbcTemplate.query(SQL_SELECT_ALL_FILMS, this::mapFilm);
+        Map<Integer, Mpa> ratings = getRatingsById();
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(SQL_SELECT_ALL_FILMS, rs -> {
+            Film film = mapFilm(rs, ratings);
+            films.put(film.getId(), film);
+        });
+        jdbcTemplate.query(SQL_SELECT_ALL_LIKES, filmLikesHandler(films));
+        jdbcTemplate.query(SQL_SELECT_ALL_FILM_GENRES, filmGenresHandler(films));
+        return new ArrayList<>(films.values());
     }
 
     @Override
     public Film getFilm(int filmId) {
+        if (!idFilter.mightContain(filmId)) {
+            throw FilmNotFoundException.withoutStackTrace("Фильм с таким id не найден");
+        }
+        return filmCache.get(filmId, this::loadFilm);
+    }
+
+    private Film loadFilm(int filmId) {
+        Film film;
         try {
-            return jdbcTemplate.queryForObject(SQL_SELECT_FILM_BY_ID, this::mapFilm, filmId);
+            film = jdbcTemplate.queryForObject(SQL_SELECT_FILM_BY_ID, this::mapFilm, filmId);
         } catch (IncorrectResultSizeDataAccessException e) {
             throw new FilmNotFoundException("Фильм с таким id не найден");
         }
+        loadFilmsData(Map.of(filmId, film));
+        return film;
+    }
+
+    @Override
+    public List<Film> getFilms(List<Integer> filmIds) {
+        Map<Integer, Mpa> ratings = getRatingsById();
+        Map<Integer, Film> films = new HashMap<>();
+        for (int from = 0; from < filmIds.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = filmIds.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, filmIds.size()));
+            jdbcTemplate.query(String.format(SQL_SELECT_FILMS_BY_IDS, placeholders(batch.size())), rs -> {
+                Film film = mapFilm(rs, ratings);
+                films.put(film.getId(), film);
+            }, batch.toArray());
+        }
+        loadFilmsData(films);
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean exists(int filmId) {
+        return idFilter.mightContain(filmId) && (filmCache.contains(filmId)
+                || Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_FILM_EXISTS, Boolean.class, filmId)));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> filmIds) {
+        if (!filmIds.stream().allMatch(idFilter::mightContain)) {
+            return false;
+        }
+        List<Integer> ids = new ArrayList<>(new HashSet<>(filmIds));
+        int found = 0;
+        for (int from = 0; from < ids.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, ids.size()));
+            found += jdbcTemplate.queryForObject(String.format(SQL_COUNT_FILMS_BY_IDS, placeholders(batch.size())),
+                    Integer.class, batch.toArray());
+        }
+        return found == ids.size();
+    }
+
+    @Override
+    public List<Film> getFilms(int afterId, int limit) {
+        Map<Integer, Mpa> ratings = getRatingsById();
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(SQL_SELECT_FILMS_PAGE, rs -> {
+            Film film = mapFilm(rs, ratings);
+            films.put(film.getId(), film);
+        }, afterId, limit);
+        loadFilmsData(films);
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> consumer) {
+        Map<Integer, Mpa> ratings = getRatingsById();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement filmsStatement = prepareStreaming(connection, SQL_SELECT_ALL_FILMS_ORDERED);
+                 PreparedStatement likesStatement = prepareStreaming(connection, SQL_SELECT_ALL_LIKES_ORDERED);
+                 PreparedStatement genresStatement = prepareStreaming(connection, SQL_SELECT_ALL_FILM_GENRES_ORDERED);
+                 ResultSet films = filmsStatement.executeQuery();
+                 ResultSet likes = likesStatement.executeQuery();
+                 ResultSet genres = genresStatement.executeQuery()) {
+                boolean hasLike = likes.next();
+                boolean hasGenre = genres.next();
+                while (films.next()) {
+                    Film film = mapFilm(films, ratings);
+                    while (hasLike && likes.getInt("film_id") <= film.getId()) {
+                        if (likes.getInt("film_id") == film.getId()) {
+                            film.getLikes().add(likes.getInt("user_id"));
+                        }
+                        hasLike = likes.next();
+                    }
+                    while (hasGenre && genres.getInt("film_id") <= film.getId()) {
+                        if (genres.getInt("film_id") == film.getId()) {
+                            film.getGenres().add(new Genre(genres.getInt("id"), genres.getString("name")));
+                        }
+                        hasGenre = genres.next();
+                    }
+                    consumer.accept(film);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(STREAM_FETCH_SIZE);
+        return statement;
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts() {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query(SQL_SELECT_FILM_LIKE_COUNTS, rs -> {
+            likeCounts.put(rs.getInt("id"), rs.getInt("like_count"));
+        });
+        return likeCounts;
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, String sortingOrder) {
+        String sql = sortingOrder.equals(DESCENDING_ORDER)
+                ? SQL_SELECT_POPULAR_FILMS_DESC
+                : SQL_SELECT_POPULAR_FILMS_ASC;
+        Map<Integer, Mpa> ratings = getRatingsById();
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            Film film = mapFilm(rs, ratings);
+            films.put(film.getId(), film);
+        }, count);
+        loadFilmsData(films);
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public List<FilmSummary> getFilmSummaries() {
+        Map<Integer, FilmSummary> films = querySummaries(SQL_SELECT_ALL_FILM_SUMMARIES);
+        jdbcTemplate.query(SQL_SELECT_ALL_FILM_GENRES, summaryGenresHandler(films));
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public List<FilmSummary> getFilmSummaries(int afterId, int limit) {
+        Map<Integer, FilmSummary> films = querySummaries(SQL_SELECT_FILM_SUMMARIES_PAGE, afterId, limit);
+        loadSummaryGenres(films);
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public List<FilmSummary> getFilmSummaries(List<Integer> filmIds) {
+        Map<Integer, FilmSummary> films = new HashMap<>();
+        for (int from = 0; from < filmIds.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = filmIds.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, filmIds.size()));
+            films.putAll(querySummaries(String.format(SQL_SELECT_FILM_SUMMARIES_BY_IDS, placeholders(batch.size())),
+                    batch.toArray()));
+        }
+        loadSummaryGenres(films);
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FilmSummary> getPopularFilmSummaries(int count, String sortingOrder) {
+        String sql = sortingOrder.equals(DESCENDING_ORDER)
+                ? SQL_SELECT_POPULAR_FILM_SUMMARIES_DESC
+                : SQL_SELECT_POPULAR_FILM_SUMMARIES_ASC;
+        Map<Integer, FilmSummary> films = querySummaries(sql, count);
+        loadSummaryGenres(films);
+        return new ArrayList<>(films.values());
+    }
+
+    // The like count comes from the "like_count" column, so the likes table is not read.
+    private Map<Integer, FilmSummary> querySummaries(String sql, Object... args) {
+        Map<Integer, Mpa> ratings = getRatingsById();
+        Map<Integer, FilmSummary> films = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            FilmSummary summary = FilmSummary.of(mapFilm(rs, ratings));
+            summary.setLikeCount(rs.getInt("like_count"));
+            films.put(summary.getId(), summary);
+        }, args);
+        return films;
+    }
+
+    private void loadSummaryGenres(Map<Integer, FilmSummary> films) {
+        List<Integer> ids = new ArrayList<>(films.keySet());
+        for (int from = 0; from < ids.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, ids.size()));
+            jdbcTemplate.query(String.format(SQL_SELECT_FILM_GENRES_BY_FILM_IDS, placeholders(batch.size())),
+                    summaryGenresHandler(films), batch.toArray());
+        }
+    }
+
+    private RowCallbackHandler summaryGenresHandler(Map<Integer, FilmSummary> films) {
+        return rs -> {
+            FilmSummary summary = films.get(rs.getInt("film_id"));
+            if (summary != null) {
+                summary.getGenres().add(new Genre(rs.getInt("id"), rs.getString("name")));
+            }
+        };
     }
 
     @Override
     public void deleteFilm(int filmId) {
+        filmCache.invalidate(filmId);
         deleteFilmGenres(filmId);
         jdbcTemplate.update(SQL_DELETE_FILM_BY_ID, filmId);
+        idFilter.remove(filmId);
     }
 
     @Override
     public Genre getGenre(int genreId) {
+        return referenceDataCache.getGenre(genreId, this::loadGenre);
+    }
+
+    @Override
+    public Mpa getRating(int ratingId) {
+        return referenceDataCache.getRating(ratingId, this::loadRating);
+    }
+
+    @Override
+    public List<Mpa> getAllRatings() {
+        return referenceDataCache.getAllRatings(() -> jdbcTemplate.query(SQL_SELECT_ALL_RATINGS,
+                (rs, rowNum) -> new Mpa(rs.getInt("id"), rs.getString("rating_title"))));
+    }
+
+    @Override
+    public List<Genre> getAllGenres() {
+        return referenceDataCache.getAllGenres(() -> jdbcTemplate.query(SQL_SELECT_ALL_GENRES,
+                (rs, rowNum) -> new Genre(rs.getInt("id"), rs.getString("name"))));
+    }
+
+    private Genre loadGenre(int genreId) {
         try {
             return jdbcTemplate.queryForObject(SQL_SELECT_GENRE_BY_ID,
                     (rs, rowNum) -> new Genre(rs.getInt("id"), rs.getString("name")),
@@ -105,8 +458,7 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
-    @Override
-    public Mpa getRating(int ratingId) {
+    private Mpa loadRating(int ratingId) {
         try {
             return jdbcTemplate.queryForObject(SQL_SELECT_RATING_BY_ID,
                     (rs, rowNum) -> new Mpa(rs.getInt("id"), rs.getString("rating_title")),
@@ -117,64 +469,160 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public List<Mpa> getAllRatings() {
-        return jdbcTemplate.query(SQL_SELECT_ALL_RATINGS, (rs, rowNum) -> new Mpa(rs.getInt("id"),
-                rs.getString("rating_title")));
+    public boolean hasLike(int filmId, int userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_LIKE_EXISTS, Boolean.class, filmId, userId));
     }
 
     @Override
-    public List<Genre> getAllGenres() {
-        return jdbcTemplate.query(SQL_SELECT_ALL_GENRES, (rs, rowNum) -> new Genre(rs.getInt("id"),
-                rs.getString("name")));
+    @Transactional
+    public void addLike(int filmId, int userId) {
+        jdbcTemplate.update(SQL_INSERT_LIKE, filmId, userId);
+        jdbcTemplate.update(SQL_INCREMENT_LIKE_COUNT, filmId);
+        filmCache.update(filmId, film -> withLike(film, userId, true));
     }
 
     @Override
-    public Film addLike(int filmId, int userId) {
-        jdbcTemplate.update(SQL_INSERT_LIKE, filmId, userId);
-        return getFilm(filmId);
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
+        if (jdbcTemplate.update(SQL_DELETE_LIKE, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(SQL_DECREMENT_LIKE_COUNT, filmId);
+        filmCache.update(filmId, film -> withLike(film, userId, false));
+        return true;
+    }
+
+    private static Film withLike(Film film, int userId, boolean liked) {
+        Film copy = Film.copyOf(film);
+        if (liked) {
+            copy.getLikes().add(userId);
+        } else {
+            copy.getLikes().remove(userId);
+        }
+        return copy;
     }
 
     @Override
-    public Film removeLike(int filmId, int userId) {
-        jdbcTemplate.update(SQL_DELETE_LIKE, filmId, userId);
-        return getFilm(filmId);
+    @Transactional
+    public void applyLikes(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+        List<Object[]> insertArgs = new ArrayList<>();
+        added.forEach((filmId, userIds) -> userIds.forEach(userId ->
+                insertArgs.add(new Object[]{filmId, userId, filmId, userId})));
+        List<Object[]> deleteArgs = new ArrayList<>();
+        removed.forEach((filmId, userIds) -> userIds.forEach(userId ->
+                deleteArgs.add(new Object[]{filmId, userId})));
+        if (!insertArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERT_LIKE_IF_ABSENT, insertArgs);
+        }
+        if (!deleteArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_DELETE_LIKE, deleteArgs);
+        }
+        Set<Integer> filmIds = new TreeSet<>(added.keySet());
+        filmIds.addAll(removed.keySet());
+        jdbcTemplate.batchUpdate(SQL_RECOUNT_LIKES, filmIds.stream()
+                .map(filmId -> new Object[]{filmId, filmId})
+                .collect(Collectors.toList()));
+        filmIds.forEach(filmCache::invalidate);
     }
 
     private Film mapFilm(ResultSet rs, int rowNumber) throws SQLException {
+        Film film = mapFilmFields(rs);
+        film.setMpa(getRating(rs.getInt("rating_id")));
+        return film;
+    }
+
+    private Film mapFilm(ResultSet rs, Map<Integer, Mpa> ratings) throws SQLException {
+        Film film = mapFilmFields(rs);
+        Mpa mpa = ratings.get(rs.getInt("rating_id"));
+        if (mpa == null) {
+            throw new RatingNotFoundException("Рейтинг с таким id не найден");
+        }
+        film.setMpa(mpa);
+        return film;
+    }
+
+    private Film mapFilmFields(ResultSet rs) throws SQLException {
         Film film = new Film();
         film.setId(rs.getInt("id"));
         film.setName(rs.getString("title"));
         film.setDescription(rs.getString("description"));
         film.setReleaseDate(rs.getDate("release_date").toLocalDate());
         film.setDuration(rs.getInt("duration"));
-        film.setMpa(getRating(rs.getInt("rating_id")));
-        film.setLikes(getFilmLikes(film.getId()));
-        film.setGenres(getFilmGenres(film.getId()));
         return film;
     }
 
-    private Set<Integer> getFilmLikes(int filmId) {
-        List<Integer> likes = jdbcTemplate.query(SQL_SELECT_LIKES_BY_FILM_ID,
-                (rs, rowNum) -> rs.getInt("user_id"),
-                filmId);
-        return new HashSet<>(likes);
+    private void loadFilmsData(Map<Integer, Film> films) {
+        List<Integer> ids = new ArrayList<>(films.keySet());
+        for (int from = 0; from < ids.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, ids.size()));
+            String placeholders = placeholders(batch.size());
+            Object[] args = batch.toArray();
+            jdbcTemplate.query(String.format(SQL_SELECT_LIKES_BY_FILM_IDS, placeholders),
+                    filmLikesHandler(films), args);
+            jdbcTemplate.query(String.format(SQL_SELECT_FILM_GENRES_BY_FILM_IDS, placeholders),
+                    filmGenresHandler(films), args);
+        }
     }
 
-    private List<Genre> getFilmGenres(int filmId) {
-        return jdbcTemplate.query(SQL_SELECT_FILM_GENRES_BY_FILM_ID, (rs, rowNum) -> new Genre(rs.getInt("id"),
-                rs.getString("name")), filmId);
+    private Map<Integer, Mpa> getRatingsById() {
+        return getAllRatings().stream()
+                .collect(Collectors.toMap(Mpa::getId, Function.identity()));
     }
 
-    private void updateFilmGenres(Film film) {
-        if (film.getGenres().isEmpty()) {
-            return;
-        } else {
-            deleteFilmGenres(film.getId());
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private RowCallbackHandler filmLikesHandler(Map<Integer, Film> films) {
+        return rs -> {
+            Film film = films.get(rs.getInt("film_id"));
+            if (film != null) {
+                film.getLikes().add(rs.getInt("user_id"));
+            }
+        };
+    }
+
+    private RowCallbackHandler filmGenresHandler(Map<Integer, Film> films) {
+        return rs -> {
+            Film film = films.get(rs.getInt("film_id"));
+            if (film != null) {
+                film.getGenres().add(new Genre(rs.getInt("id"), rs.getString("name")));
+            }
+        };
+    }
+
+    // Writes only the difference between the stored and the requested genres, in two batches. Kept genres keep
+    // their position and added ones go last, which is the order they are read back in.
+    private List<Genre> updateFilmGenres(int filmId, List<Genre> genres) {
+        List<Genre> stored = loadFilmGenres(filmId);
+        Set<Genre> requested = new LinkedHashSet<>(genres);
+        List<Genre> updated = new ArrayList<>();
+        List<Object[]> deleteArgs = new ArrayList<>();
+        for (Genre genre : new LinkedHashSet<>(stored)) {
+            if (requested.remove(genre)) {
+                updated.add(genre);
+            } else {
+                deleteArgs.add(new Object[]{filmId, genre.getId()});
+            }
+        }
+        List<Object[]> insertArgs = new ArrayList<>();
+        for (Genre genre : requested) {
+            insertArgs.add(new Object[]{filmId, genre.getId()});
+            updated.add(genre);
         }
-        List<Genre> distinctGenres = film.getGenres().stream().distinct().collect(Collectors.toList());
-        for (Genre genre : distinctGenres) {
-            jdbcTemplate.update(SQL_INSERT_FILM_GENRES, film.getId(), genre.getId());
+        if (!deleteArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_DELETE_FILM_GENRE, deleteArgs);
         }
+        if (!insertArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERT_FILM_GENRES, insertArgs);
+        }
+        return updated;
+    }
+
+    private List<Genre> loadFilmGenres(int filmId) {
+        return jdbcTemplate.query(SQL_SELECT_FILM_GENRES_BY_FILM_ID,
+                (rs, rowNum) -> new Genre(rs.getInt("id"), rs.getString("name")),
+                filmId);
     }
 
     private void deleteFilmGenres(int filmId) {
@@ -1,27 +1,87 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film addFilm(Film film);
 
+    List<Integer> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     List<Film> getFilms();
 
     Film getFilm(int filmId);
 
+    List<Film> getFilms(List<Integer> filmIds);
+
+    /**
+     * Whether the film exists, without loading its likes and genres.
+     */
+    boolean exists(int filmId);
+
+    /**
+     * Whether every film of the collection exists.
+     */
+    boolean existsAll(Collection<Integer> filmIds);
+
+    List<Film> getFilms(int afterId, int limit);
+
+    void forEachFilm(Consumer<Film> consumer);
+
+    Map<Integer, Integer> getLikeCounts();
+
+    List<Film> getPopularFilms(int count, String sortingOrder);
+
+    /**
+     * Films with their like count instead of their likes; the likes are not read.
+     */
+    List<FilmSummary> getFilmSummaries();
+
+    List<FilmSummary> getFilmSummaries(int afterId, int limit);
+
+    /**
+     * Summaries in the order of the ids; unknown ids are skipped.
+     */
+    List<FilmSummary> getFilmSummaries(List<Integer> filmIds);
+
+    List<FilmSummary> getPopularFilmSummaries(int count, String sortingOrder);
+
     Genre getGenre(int genreId);
 
     List<Genre> getAllGenres();
 
-    Film addLike(int filmId, int userId);
+    /**
+     * Whether the like is stored, without loading the likes of the film.
+     */
+    boolean hasLike(int filmId, int userId);
+
+    /**
+     * Stores the like without reading the film back; the caller already holds it.
+     */
+    void addLike(int filmId, int userId);
+
+    /**
+     * Removes the like without reading the film back.
+     *
+     * @return whether the like existed
+     */
+    boolean removeLike(int filmId, int userId);
 
-    Film removeLike(int filmId, int userId);
+    /**
+     * Adds and removes likes (film id -> user ids) in one transaction. Adding an existing like
+     * or removing a missing one is not an error.
+     */
+    void applyLikes(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed);
 
     Mpa getRating(int ratingId);
 
@@ -1,101 +1,343 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.Exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.Exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.Exception.RatingNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.comparators.FilmComparator;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 
 import javax.validation.ValidationException;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.filmorate.storage.Constants.EARLIEST_FILM_RELEASE_DATE;
 
-@Component
+@Component("inMemoryFilmStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
 @Slf4j
 public class InMemoryFilmStorage implements FilmStorage {
+    private static final Map<Integer, String> GENRES = Map.of(
+            1, "Комедия",
+            2, "Драма",
+            3, "Мультфильм",
+            4, "Триллер",
+            5, "Документальный",
+            6, "Боевик");
+    private static final Map<Integer, String> RATINGS = Map.of(
+            1, "G",
+            2, "PG",
+            3, "PG-13",
+            4, "R",
+            5, "NC-17");
 
-    private final Map<Integer, Film> films = new HashMap<>();
+    private final ConcurrentSkipListMap<Integer, Film> films = new ConcurrentSkipListMap<>();
 
-    private int idCounter = 1;
+    private final Map<Integer, Set<Integer>> likes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger idCounter = new AtomicInteger(1);
+
+    private final InMemoryUserStorage userStorage;
+
+    @Autowired
+    public InMemoryFilmStorage(InMemoryUserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
 
     @Override
     public Film addFilm(Film film) {
         checkFilmReleaseDate(film.getReleaseDate());
-        film.setId(idCounter++);
-        films.put(film.getId(), film);
+        Film stored = copyFields(film);
+        stored.setGenres(resolveGenres(film.getGenres()));
+        film.setId(idCounter.getAndIncrement());
+        stored.setId(film.getId());
+        likes.put(film.getId(), ConcurrentHashMap.newKeySet());
+        films.put(film.getId(), stored);
         log.info("Фильм " + film.getId() + " добавлен. Всего фильмов в коллекции: " + films.size());
-        return film;
+        return toFilm(stored);
+    }
+
+    @Override
+    public List<Integer> addFilms(List<Film> films) {
+        return films.stream()
+                .map(this::addFilm)
+                .map(Film::getId)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Film updateFilm(Film film) {
         checkFilmReleaseDate(film.getReleaseDate());
-        if (films.containsKey(film.getId())) {
-            films.put(film.getId(), film);
-            log.info("Фильм " + film.getId() + " обновлен");
-            return film;
+        Film stored = copyFields(film);
+        List<Genre> genres = film.getGenres().isEmpty() ? null : resolveGenres(film.getGenres());
+        Film updated = films.computeIfPresent(film.getId(), (id, old) -> {
+            stored.setGenres(genres == null ? old.getGenres() : mergeGenres(old.getGenres(), genres));
+            return stored;
+        });
+        if (updated == null) {
+            log.info("Фильм с id " + film.getId() + " не найден");
+            throw new FilmNotFoundException("Фильм с id " + film.getId() + " не найден");
         }
-        log.info("Фильм с id " + film.getId() + " не найден");
-        log.warn("Фильм с id " + film.getId() + " не найден");
-        throw new FilmNotFoundException("Фильм с id " + film.getId() + " не найден");
+        log.info("Фильм " + film.getId() + " обновлен");
+        return toFilm(updated);
     }
 
     @Override
     public List<Film> getFilms() {
         log.info("Запрошен список всех фильмов");
-        return new ArrayList<>(films.values());
+        return films.values().stream()
+                .map(this::toFilm)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Film getFilm(int filmId) {
         log.info("Запрошен фильм с id " + filmId);
-        if (!films.containsKey(filmId)) {
-            log.info("Фильм с id " + filmId + " не найден");
+        Film stored = films.get(filmId);
+        if (stored == null) {
             log.warn("Фильм с id " + filmId + " не найден");
             throw new FilmNotFoundException("Фильм с id " + filmId + " не найден");
         }
-        return films.get(filmId);
+        return toFilm(stored);
+    }
+
+    @Override
+    public List<Film> getFilms(List<Integer> filmIds) {
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::toFilm)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean exists(int filmId) {
+        return films.containsKey(filmId);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> filmIds) {
+        return filmIds.stream().allMatch(films::containsKey);
+    }
+
+    @Override
+    public List<Film> getFilms(int afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(this::toFilm)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> consumer) {
+        films.values().stream()
+                .map(this::toFilm)
+                .forEach(consumer);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts() {
+        Map<Integer, Integer> likeCounts = new LinkedHashMap<>();
+        for (Integer filmId : films.keySet()) {
+            Set<Integer> filmLikes = likes.get(filmId);
+            likeCounts.put(filmId, filmLikes == null ? 0 : filmLikes.size());
+        }
+        return likeCounts;
+    }
+
+    @Override
+    public List<FilmSummary> getFilmSummaries() {
+        return toSummaries(getFilms());
+    }
+
+    @Override
+    public List<FilmSummary> getFilmSummaries(int afterId, int limit) {
+        return toSummaries(getFilms(afterId, limit));
+    }
+
+    @Override
+    public List<FilmSummary> getFilmSummaries(List<Integer> filmIds) {
+        return toSummaries(getFilms(filmIds));
+    }
+
+    @Override
+    public List<FilmSummary> getPopularFilmSummaries(int count, String sortingOrder) {
+        return toSummaries(getPopularFilms(count, sortingOrder));
+    }
+
+    private static List<FilmSummary> toSummaries(List<Film> films) {
+        return films.stream()
+                .map(FilmSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, String sortingOrder) {
+        Comparator<Film> byLikes = (f1, f2) -> new FilmComparator().compare(f1, f2, sortingOrder);
+        return films.values().stream()
+                .map(this::toFilm)
+                .sorted(byLikes.thenComparing(Film::getId))
+                .limit(count)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Genre getGenre(int genreId) {
-        return null;
+        String name = GENRES.get(genreId);
+        if (name == null) {
+            throw new GenreNotFoundException("Жанр с таким id не найден");
+        }
+        return new Genre(genreId, name);
     }
 
     @Override
     public List<Genre> getAllGenres() {
-        return null;
+        return GENRES.keySet().stream()
+                .sorted()
+                .map(this::getGenre)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addLike(int filmId, int userId) {
+        Set<Integer> filmLikes = likes.get(filmId);
+        if (filmLikes == null || !userStorage.exists(userId)) {
+            throw new DataIntegrityViolationException("Фильм " + filmId + " или пользователь " + userId + " не найден");
+        }
+        if (!filmLikes.add(userId)) {
+            throw new DuplicateKeyException("Пользователь " + userId + " уже поставил лайк фильму " + filmId);
+        }
     }
 
     @Override
-    public Film addLike(int filmId, int userId) {
-        return null;
+    public boolean hasLike(int filmId, int userId) {
+        Set<Integer> filmLikes = likes.get(filmId);
+        return filmLikes != null && filmLikes.contains(userId);
     }
 
     @Override
-    public Film removeLike(int filmId, int userId) {
-        return null;
+    public boolean removeLike(int filmId, int userId) {
+        Set<Integer> filmLikes = likes.get(filmId);
+        return filmLikes != null && filmLikes.remove(userId);
+    }
+
+    @Override
+    public void applyLikes(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+        added.forEach((filmId, userIds) -> {
+            Set<Integer> filmLikes = likes.get(filmId);
+            if (filmLikes == null || !userStorage.existsAll(userIds)) {
+                throw new DataIntegrityViolationException("Фильм " + filmId + " или пользователь не найден");
+            }
+        });
+        added.forEach((filmId, userIds) -> likes.get(filmId).addAll(userIds));
+        removed.forEach((filmId, userIds) -> {
+            Set<Integer> filmLikes = likes.get(filmId);
+            if (filmLikes != null) {
+                filmLikes.removeAll(userIds);
+            }
+        });
     }
 
     @Override
     public Mpa getRating(int ratingId) {
-        return null;
+        String title = RATINGS.get(ratingId);
+        if (title == null) {
+            throw new RatingNotFoundException("Рейтинг с таким id не найден");
+        }
+        return new Mpa(ratingId, title);
     }
 
     @Override
     public List<Mpa> getAllRatings() {
-        return null;
+        return RATINGS.keySet().stream()
+                .sorted()
+                .map(this::getRating)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void deleteFilm(int filmId) {
+        films.remove(filmId);
+        likes.remove(filmId);
+    }
+
+    private Film copyFields(Film film) {
+        if (film.getMpa() == null || !RATINGS.containsKey(film.getMpa().getId())) {
+            throw new DataIntegrityViolationException("Рейтинг фильма не найден");
+        }
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setMpa(getRating(film.getMpa().getId()));
+        return copy;
+    }
 
+    // Same order as the database storage: kept genres stay in place, added ones go last.
+    private static List<Genre> mergeGenres(List<Genre> old, List<Genre> requested) {
+        List<Genre> merged = old.stream()
+                .filter(requested::contains)
+                .collect(Collectors.toCollection(ArrayList::new));
+        requested.stream()
+                .filter(genre -> !merged.contains(genre))
+                .forEach(merged::add);
+        return merged;
+    }
+
+    private List<Genre> resolveGenres(List<Genre> genres) {
+        List<Genre> resolved = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (Genre genre : genres) {
+            if (!GENRES.containsKey(genre.getId())) {
+                throw new DataIntegrityViolationException("Жанр с id " + genre.getId() + " не найден");
+            }
+            if (seen.add(genre.getId())) {
+                resolved.add(getGenre(genre.getId()));
+            }
+        }
+        return List.copyOf(resolved);
+    }
+
+    private Film toFilm(Film stored) {
+        Film film = new Film();
+        film.setId(stored.getId());
+        film.setName(stored.getName());
+        film.setDescription(stored.getDescription());
+        film.setReleaseDate(stored.getReleaseDate());
+        film.setDuration(stored.getDuration());
+        film.setMpa(new Mpa(stored.getMpa().getId(), stored.getMpa().getName()));
+        for (Genre genre : stored.getGenres()) {
+            film.getGenres().add(new Genre(genre.getId(), genre.getName()));
+        }
+        Set<Integer> filmLikes = likes.get(stored.getId());
+        if (filmLikes != null) {
+            film.getLikes().addAll(filmLikes);
+        }
+        return film;
     }
 
     private void checkFilmReleaseDate(LocalDate date) {
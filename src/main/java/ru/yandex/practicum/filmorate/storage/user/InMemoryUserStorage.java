@@ -1,78 +1,240 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.Exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-@Component
+@Component("inMemoryUserStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
 @Slf4j
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Integer, User> users = new HashMap<>();
-    private int idCounter = 1;
+    private final ConcurrentSkipListMap<Integer, User> users = new ConcurrentSkipListMap<>();
+
+    // user -> (request recipient -> approved)
+    private final Map<Integer, ConcurrentMap<Integer, Boolean>> outgoingRequests = new ConcurrentHashMap<>();
+
+    // the same requests keyed by recipient: user -> (requester -> approved)
+    private final Map<Integer, ConcurrentMap<Integer, Boolean>> incomingRequests = new ConcurrentHashMap<>();
+
+    private final AtomicInteger idCounter = new AtomicInteger(1);
 
     @Override
     public User addUser(User user) {
         if (user.getName() == null) {
             user.setName(user.getLogin());
         }
-        user.setId(idCounter++);
-        users.put(user.getId(), user);
+        user.setId(idCounter.getAndIncrement());
+        outgoingRequests.put(user.getId(), new ConcurrentHashMap<>());
+        incomingRequests.put(user.getId(), new ConcurrentHashMap<>());
+        users.put(user.getId(), copyFields(user));
         log.info("Пользователь " + user.getId() + " добавлен");
         return user;
     }
 
+    @Override
+    public List<Integer> addUsers(List<User> users) {
+        return users.stream()
+                .map(this::addUser)
+                .map(User::getId)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public User updateUser(User user) {
-        if (users.containsKey(user.getId())) {
-            users.put(user.getId(), user);
+        if (users.replace(user.getId(), copyFields(user)) != null) {
             log.info("Информация о пользователе " + user.getId() + " обновлена");
             return user;
         }
-        log.info("Пользователь с id " + user.getId() + " не найден");
         log.warn("Пользователь с id " + user.getId() + " не найден");
         throw new UserNotFoundException("Пользователь с id " + user.getId() + " не найден");
     }
 
     @Override
     public List<User> getUsers() {
-        log.warn("Запрошен список всех пользователей");
-        return new ArrayList<>(users.values());
+        log.info("Запрошен список всех пользователей");
+        return users.values().stream()
+                .map(this::toUser)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> getUsers(int afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(this::toUser)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> consumer) {
+        users.values().stream()
+                .map(this::toUser)
+                .forEach(consumer);
     }
 
     @Override
     public User getUser(int userId) {
-        log.warn("Запрошен пользователь с id " + userId);
-        if (!users.containsKey(userId)) {
-            log.info("Пользователь с id " + userId + " не найден");
+        log.info("Запрошен пользователь с id " + userId);
+        User stored = users.get(userId);
+        if (stored == null) {
             log.warn("Пользователь с id " + userId + " не найден");
             throw new UserNotFoundException("Пользователь с id " + userId + " не найден");
         }
-        return users.get(userId);
+        return toUser(stored);
     }
 
     @Override
-    public User addFriend(int userId, int friendId) {
-        return null;
+    public List<User> getUsers(List<Integer> userIds) {
+        return userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(this::toUser)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public User removeFriend(int userId, int friendId) {
-        return null;
+    public boolean exists(int userId) {
+        return users.containsKey(userId);
     }
 
     @Override
-    public void approveFriend(int userId, int friendId) {
+    public boolean existsAll(Collection<Integer> userIds) {
+        return userIds.stream().allMatch(users::containsKey);
+    }
+
+    @Override
+    public void addFriend(int userId, int friendId) {
+        ConcurrentMap<Integer, Boolean> outgoing = outgoingRequests.get(userId);
+        ConcurrentMap<Integer, Boolean> incoming = incomingRequests.get(friendId);
+        if (outgoing == null || incoming == null) {
+            throw new DataIntegrityViolationException("Пользователь " + userId + " или " + friendId + " не найден");
+        }
+        if (outgoing.putIfAbsent(friendId, false) != null) {
+            throw new DuplicateKeyException("Заявка от " + userId + " к " + friendId + " уже существует");
+        }
+        incoming.put(userId, false);
+    }
 
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        ConcurrentMap<Integer, Boolean> outgoing = outgoingRequests.get(userId);
+        if (outgoing != null && outgoing.remove(friendId) != null) {
+            incomingRequests.get(friendId).remove(userId);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void approveFriend(int requestFrom, int requestTo) {
+        ConcurrentMap<Integer, Boolean> outgoing = outgoingRequests.get(requestFrom);
+        if (outgoing != null && outgoing.replace(requestTo, true) != null) {
+            incomingRequests.get(requestTo).replace(requestFrom, true);
+        }
     }
 
     @Override
     public List<User> getUserFriends(int userId) {
-        return null;
+        int[] friendIds = sortedFriendIds(userId);
+        return toUsers(friendIds);
+    }
+
+    @Override
+    public List<User> getCommonFriends(int userId, int otherUserId) {
+        return toUsers(intersectSorted(sortedFriendIds(userId), sortedFriendIds(otherUserId)));
+    }
+
+    @Override
+    public void forEachFriendRequest(FriendRequestConsumer consumer) {
+        outgoingRequests.forEach((requestFrom, requests) ->
+                requests.forEach((requestTo, approved) -> consumer.accept(requestFrom, requestTo, approved)));
+    }
+
+    private List<User> toUsers(int[] userIds) {
+        List<User> result = new ArrayList<>(userIds.length);
+        for (int userId : userIds) {
+            User user = users.get(userId);
+            if (user != null) {
+                result.add(toUser(user));
+            }
+        }
+        return result;
+    }
+
+    private Set<Integer> friendIds(int userId) {
+        Set<Integer> friends = new HashSet<>();
+        ConcurrentMap<Integer, Boolean> outgoing = outgoingRequests.get(userId);
+        if (outgoing != null) {
+            friends.addAll(outgoing.keySet());
+        }
+        ConcurrentMap<Integer, Boolean> incoming = incomingRequests.get(userId);
+        if (incoming != null) {
+            incoming.forEach((requestFrom, approved) -> {
+                if (approved) {
+                    friends.add(requestFrom);
+                }
+            });
+        }
+        return friends;
+    }
+
+    private int[] sortedFriendIds(int userId) {
+        int[] ids = friendIds(userId).stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static int[] intersectSorted(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static User copyFields(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
+    }
+
+    private User toUser(User stored) {
+        User user = copyFields(stored);
+        user.setFriends(friendIds(stored.getId()));
+        return user;
     }
 }
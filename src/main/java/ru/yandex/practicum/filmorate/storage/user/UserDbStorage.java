@@ -1,28 +1,68 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.Exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.IdFilter;
 
+import javax.annotation.PostConstruct;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.filmorate.storage.DbConstants.*;
 
 @Component("userDbStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db", matchIfMissing = true)
 public class UserDbStorage implements UserStorage {
+    private static final int IN_LIST_BATCH_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final EntityCache<User> userCache;
+
+    private final IdFilter idFilter;
+
+    public UserDbStorage(JdbcTemplate jdbcTemplate, EntityCache<User> userCache) {
+        this(jdbcTemplate, userCache, false);
+    }
+
     @Autowired
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate,
+                         EntityCache<User> userCache,
+                         @Value("${filmorate.id-filter.enabled:true}") boolean idFilterEnabled) {
         this.jdbcTemplate = jdbcTemplate;
+        this.userCache = userCache;
+        this.idFilter = new IdFilter(idFilterEnabled);
+    }
+
+    @PostConstruct
+    public void loadIds() {
+        if (idFilter.isEnabled()) {
+            jdbcTemplate.query(SQL_SELECT_ALL_USER_IDS, rs -> {
+                idFilter.add(rs.getInt("id"));
+            });
+        }
     }
 
     @Override
@@ -40,10 +80,47 @@ public class UserDbStorage implements UserStorage {
             throw new RuntimeException("Что-то пошло не так при получении ключа созданной записи");
         } else {
             user.setId((Integer) keyHolder.getKey());
+            idFilter.add(user.getId());
             return user;
         }
     }
 
+    @Override
+    @Transactional
+    public List<Integer> addUsers(List<User> users) {
+        List<Integer> ids = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+                for (User user : users) {
+                    ps.setString(1, user.getEmail());
+                    ps.setString(2, user.getLogin());
+                    ps.setString(3, user.getName());
+                    ps.setDate(4, Date.valueOf(user.getBirthday()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                return readGeneratedKeys(ps, users.size());
+            }
+        });
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(ids.get(i));
+            idFilter.add(ids.get(i));
+        }
+        return ids;
+    }
+
+    private static List<Integer> readGeneratedKeys(PreparedStatement ps, int expected) throws SQLException {
+        List<Integer> ids = new ArrayList<>(expected);
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getInt(1));
+            }
+        }
+        if (ids.size() != expected) {
+            throw new RuntimeException("Что-то пошло не так при получении ключей созданных записей");
+        }
+        return ids;
+    }
+
     @Override
     public User updateUser(User user) {
         int updated = jdbcTemplate.update(SQL_UPDATE_USER,
@@ -52,6 +129,7 @@ public class UserDbStorage implements UserStorage {
                 user.getName(),
                 user.getBirthday(),
                 user.getId());
+        userCache.invalidate(user.getId());
         if (updated == 0) {
             throw new UserNotFoundException("Пользователь с данным id не найден");
         } else {
@@ -61,55 +139,198 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> getUsers() {
-        return jdbcTemplate.query(SQL_SELECT_ALL_USERS, this::mapUser);
+        Map<Integer, User> users = new LinkedHashMap<>();
+        jdbcTemplate.query(SQL_SELECT_ALL_USERS, usersHandler(users));
+        jdbcTemplate.query(SQL_SELECT_ALL_FRIEND_EDGES, friendsHandler(users));
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public List<User> getUsers(int afterId, int limit) {
+        return queryUsers(SQL_SELECT_USERS_PAGE, afterId, limit);
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> consumer) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement usersStatement = prepareStreaming(connection, SQL_SELECT_ALL_USERS_ORDERED);
+                 PreparedStatement requestsStatement = prepareStreaming(connection,
+                         SQL_SELECT_FRIEND_REQUESTS_ORDERED);
+                 PreparedStatement approvedStatement = prepareStreaming(connection,
+                         SQL_SELECT_APPROVED_FRIEND_REQUESTS_ORDERED);
+                 ResultSet users = usersStatement.executeQuery();
+                 ResultSet requests = requestsStatement.executeQuery();
+                 ResultSet approved = approvedStatement.executeQuery()) {
+                boolean hasRequest = requests.next();
+                boolean hasApproved = approved.next();
+                while (users.next()) {
+                    User user = mapUserFields(users);
+                    while (hasRequest && requests.getInt("user_id") <= user.getId()) {
+                        if (requests.getInt("user_id") == user.getId()) {
+                            user.getFriends().add(requests.getInt("friend_id"));
+                        }
+                        hasRequest = requests.next();
+                    }
+                    while (hasApproved && approved.getInt("friend_id") <= user.getId()) {
+                        if (approved.getInt("friend_id") == user.getId()) {
+                            user.getFriends().add(approved.getInt("user_id"));
+                        }
+                        hasApproved = approved.next();
+                    }
+                    consumer.accept(user);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(STREAM_FETCH_SIZE);
+        return statement;
     }
 
     @Override
     public User getUser(int userId) {
-        try {
-            return jdbcTemplate.queryForObject(SQL_SELECT_USER_BY_ID, this::mapUser, userId);
-        } catch (IncorrectResultSizeDataAccessException e) {
+        if (!idFilter.mightContain(userId)) {
+            throw UserNotFoundException.withoutStackTrace("Пользователь с таким id не найден");
+        }
+        return userCache.get(userId, this::loadUser);
+    }
+
+    @Override
+    public List<User> getUsers(List<Integer> userIds) {
+        Map<Integer, User> users = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = userIds.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, userIds.size()));
+            jdbcTemplate.query(String.format(SQL_SELECT_USERS_BY_IDS, placeholders(batch.size())),
+                    usersHandler(users), batch.toArray());
+        }
+        loadFriends(users);
+        return userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean exists(int userId) {
+        return idFilter.mightContain(userId) && (userCache.contains(userId)
+                || Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_USER_EXISTS, Boolean.class, userId)));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> userIds) {
+        if (!userIds.stream().allMatch(idFilter::mightContain)) {
+            return false;
+        }
+        List<Integer> ids = new ArrayList<>(new HashSet<>(userIds));
+        int found = 0;
+        for (int from = 0; from < ids.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, ids.size()));
+            found += jdbcTemplate.queryForObject(String.format(SQL_COUNT_USERS_BY_IDS, placeholders(batch.size())),
+                    Integer.class, batch.toArray());
+        }
+        return found == ids.size();
+    }
+
+    private User loadUser(int userId) {
+        List<User> users = queryUsers(SQL_SELECT_USER_BY_ID, userId);
+        if (users.isEmpty()) {
             throw new UserNotFoundException("Пользователь с таким id не найден");
         }
+        return users.get(0);
     }
 
     @Override
-    public User addFriend(int userId, int friendId) {
+    public void addFriend(int userId, int friendId) {
         jdbcTemplate.update(SQL_INSERT_FRIEND, userId, friendId);
-        return getUser(userId);
+        invalidateFriendship(userId, friendId);
     }
 
     @Override
-    public User removeFriend(int userId, int friendId) {
-        jdbcTemplate.update(SQL_DELETE_FRIEND, userId, friendId);
-        return getUser(userId);
+    public boolean removeFriend(int userId, int friendId) {
+        if (jdbcTemplate.update(SQL_DELETE_FRIEND, userId, friendId) == 0) {
+            return false;
+        }
+        invalidateFriendship(userId, friendId);
+        return true;
     }
 
     @Override
     public void approveFriend(int requestFrom, int requestTo) {
         jdbcTemplate.update(SQL_APPROVE_FRIEND, requestFrom, requestTo);
+        invalidateFriendship(requestFrom, requestTo);
+    }
+
+    @Override
+    public void forEachFriendRequest(FriendRequestConsumer consumer) {
+        jdbcTemplate.query(SQL_SELECT_ALL_FRIEND_REQUESTS, rs -> {
+            consumer.accept(rs.getInt("user_id"), rs.getInt("friend_id"), rs.getBoolean("request_status"));
+        });
+    }
+
+    private void invalidateFriendship(int userId, int friendId) {
+        userCache.invalidate(userId);
+        userCache.invalidate(friendId);
     }
 
-    private User mapUser(ResultSet rs, int rowNumber) throws SQLException {
+    private List<User> queryUsers(String sql, Object... args) {
+        Map<Integer, User> users = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, usersHandler(users), args);
+        loadFriends(users);
+        return new ArrayList<>(users.values());
+    }
+
+    private void loadFriends(Map<Integer, User> users) {
+        List<Integer> ids = new ArrayList<>(users.keySet());
+        for (int from = 0; from < ids.size(); from += IN_LIST_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_LIST_BATCH_SIZE, ids.size()));
+            List<Integer> args = new ArrayList<>(batch);
+            args.addAll(batch);
+            jdbcTemplate.query(String.format(SQL_SELECT_FRIEND_EDGES_BY_USER_IDS, placeholders(batch.size())),
+                    friendsHandler(users), args.toArray());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private RowCallbackHandler usersHandler(Map<Integer, User> users) {
+        return rs -> {
+            User user = mapUserFields(rs);
+            users.put(user.getId(), user);
+        };
+    }
+
+    private RowCallbackHandler friendsHandler(Map<Integer, User> users) {
+        return rs -> {
+            User user = users.get(rs.getInt("user_id"));
+            if (user != null) {
+                user.getFriends().add(rs.getInt("friend_id"));
+            }
+        };
+    }
+
+    private User mapUserFields(ResultSet rs) throws SQLException {
         User user = new User();
         user.setId(rs.getInt("id"));
         user.setLogin(rs.getString("login"));
         user.setEmail(rs.getString("email"));
         user.setName(rs.getString("name"));
         user.setBirthday(rs.getDate("birthday").toLocalDate());
-        user.setFriends(getUserFriendsIds(user.getId()));
         return user;
     }
 
-    private Set<Integer> getUserFriendsIds(int userId) {
-        List<Integer> friendsIds = jdbcTemplate.query(SQL_SELECT_USER_FRIENDS_IDS,
-                (rs, rowNum) -> rs.getInt("friends_ids"), userId, userId, userId);
-        return new HashSet<>(friendsIds);
+    @Override
+    public List<User> getUserFriends(int userId) {
+        return queryUsers(SQL_SELECT_USER_FRIENDS, userId, userId);
     }
 
     @Override
-    public List<User> getUserFriends(int userId) {
-        return jdbcTemplate.query(SQL_SELECT_USER_FRIENDS,
-                this::mapUser, userId, userId, userId);
+    public List<User> getCommonFriends(int userId, int otherUserId) {
+        return queryUsers(SQL_SELECT_COMMON_FRIENDS, userId, userId, otherUserId, otherUserId);
     }
 }
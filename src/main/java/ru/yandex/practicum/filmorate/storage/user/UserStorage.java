@@ -2,22 +2,59 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User addUser(User user);
 
+    List<Integer> addUsers(List<User> users);
+
     User updateUser(User user);
 
     List<User> getUsers();
 
+    List<User> getUsers(int afterId, int limit);
+
+    void forEachUser(Consumer<User> consumer);
+
     User getUser(int userId);
 
-    User addFriend(int userId, int friendId);
+    List<User> getUsers(List<Integer> userIds);
+
+    /**
+     * Whether the user exists, without loading their friends.
+     */
+    boolean exists(int userId);
+
+    /**
+     * Whether every user of the collection exists.
+     */
+    boolean existsAll(Collection<Integer> userIds);
 
-    User removeFriend(int userId, int friendId);
+    /**
+     * Stores the friend request without reading the user back; the caller already holds it.
+     */
+    void addFriend(int userId, int friendId);
+
+    /**
+     * Removes the friend request without reading the user back.
+     *
+     * @return whether the request existed
+     */
+    boolean removeFriend(int userId, int friendId);
 
     void approveFriend(int requestFrom, int requestTo);
 
     List<User> getUserFriends(int userId);
+
+    List<User> getCommonFriends(int userId, int otherUserId);
+
+    void forEachFriendRequest(FriendRequestConsumer consumer);
+
+    @FunctionalInterface
+    interface FriendRequestConsumer {
+        void accept(int requestFrom, int requestTo, boolean approved);
+    }
 }
@@ -1,11 +1,3 @@
-drop table IF EXISTS "friends" CASCADE;
-drop table IF EXISTS "likes" CASCADE;
-drop table IF EXISTS "users" CASCADE;
-drop table IF EXISTS "films" CASCADE;
-drop table IF EXISTS "film_genres" CASCADE;
-drop table IF EXISTS "genres" CASCADE;
-drop table IF EXISTS "ratings" CASCADE;
-
 create TABLE IF NOT EXISTS "users" (
   "id" integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   "email" varchar(40),
@@ -22,7 +14,6 @@ create TABLE IF NOT EXISTS "friends" (
    PRIMARY KEY ("user_id", "friend_id")
 );
 
-
 create TABLE IF NOT EXISTS "ratings" (
   "id" integer PRIMARY KEY,
   "rating_title" varchar(5)
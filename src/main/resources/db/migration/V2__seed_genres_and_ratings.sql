@@ -1,4 +1,4 @@
-insert into PUBLIC."genres" ("id","name") VALUES
+merge into "genres" ("id","name") KEY ("id") VALUES
 	 (1,'Комедия'),
 	 (2,'Драма'),
 	 (3,'Мультфильм'),
@@ -6,9 +6,9 @@ insert into PUBLIC."genres" ("id","name") VALUES
 	 (5,'Документальный'),
 	 (6,'Боевик');
 
-insert into PUBLIC."ratings" ("id","rating_title") VALUES
+merge into "ratings" ("id","rating_title") KEY ("id") VALUES
 	 (1,'G'),
 	 (2,'PG'),
 	 (3,'PG-13'),
 	 (4,'R'),
-	 (5,'NC-17');
\ No newline at end of file
+	 (5,'NC-17');
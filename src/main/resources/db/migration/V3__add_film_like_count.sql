@@ -0,0 +1,6 @@
+alter table "films" add COLUMN IF NOT EXISTS "like_count" integer DEFAULT 0 NOT NULL;
+
+update "films" f set "like_count" = (select count(*) from "likes" l where l."film_id" = f."id");
+
+create INDEX IF NOT EXISTS "films_like_count_desc_idx" ON "films" ("like_count" DESC, "id");
+create INDEX IF NOT EXISTS "films_like_count_asc_idx" ON "films" ("like_count", "id");
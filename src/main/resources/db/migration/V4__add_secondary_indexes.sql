@@ -0,0 +1,4 @@
+create INDEX IF NOT EXISTS "friends_friend_id_idx" ON "friends" ("friend_id", "request_status");
+create INDEX IF NOT EXISTS "likes_user_id_idx" ON "likes" ("user_id", "film_id");
+create INDEX IF NOT EXISTS "film_genres_film_id_idx" ON "film_genres" ("film_id", "genre_id");
+create INDEX IF NOT EXISTS "films_rating_id_idx" ON "films" ("rating_id");
@@ -9,11 +9,15 @@ import org.springframework.context.ConfigurableApplicationContext;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 public class FilmControllerTests {
@@ -209,4 +213,84 @@ public class FilmControllerTests {
         HttpResponse<String> response = httpClient.send(requestPOSTFilms(jsonSent), responseHandler);
         assertEquals(400, response.statusCode());
     }
+
+    @Test
+    void shouldFindFilmByCyrillicWordInName() throws IOException, InterruptedException {
+        String jsonSent = "{\n" +
+                "  \"name\": \"Ёжик в тумане\",\n" +
+                "  \"description\": \"Мультфильм о ёжике и медвежонке\",\n" +
+                "  \"releaseDate\": \"1975-01-01\",\n" +
+                "  \"duration\": 10,\n" +
+                "  \"mpa\": {\"id\": 1}\n" +
+                "}";
+        assertEquals(200, httpClient.send(requestPOSTFilms(jsonSent), responseHandler).statusCode());
+
+        HttpResponse<String> response = httpClient.send(requestGET("/films/search?q="
+                + URLEncoder.encode("ежик", StandardCharsets.UTF_8)), responseHandler);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("Ёжик в тумане"));
+
+        response = httpClient.send(requestGET("/films/search?q=%20"), responseHandler);
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void shouldReturnFilmSummariesWithLikeCount() throws IOException, InterruptedException {
+        String jsonSent = "{\n" +
+                "  \"name\": \"Summary\",\n" +
+                "  \"description\": \"Film for the summary view\",\n" +
+                "  \"releaseDate\": \"2000-01-01\",\n" +
+                "  \"duration\": 90,\n" +
+                "  \"mpa\": {\"id\": 1}\n" +
+                "}";
+        assertEquals(200, httpClient.send(requestPOSTFilms(jsonSent), responseHandler).statusCode());
+
+        HttpResponse<String> response = httpClient.send(requestGET("/films/popular?view=summary"), responseHandler);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"likeCount\":0"));
+        assertFalse(response.body().contains("\"likes\""));
+
+        response = httpClient.send(requestGET("/films?view=summary&limit=1"), responseHandler);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"likeCount\""));
+
+        response = httpClient.send(requestGET("/films?view=compact"), responseHandler);
+        assertEquals(400, response.statusCode());
+
+        assertEquals(200, httpClient.send(HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"user@mail.ru\",\"login\":\"user\","
+                        + "\"birthday\":\"1990-01-01\"}"))
+                .uri(URI.create("http://localhost:8080/users"))
+                .header("Content-Type", "application/json")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build(), responseHandler).statusCode());
+        response = httpClient.send(requestLike("PUT", "/films/1/like/1?view=summary"), responseHandler);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"likeCount\":1"));
+        assertFalse(response.body().contains("\"likes\""));
+
+        response = httpClient.send(requestLike("DELETE", "/films/1/like/1?view=summary"), responseHandler);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"likeCount\":0"));
+
+        response = httpClient.send(requestLike("PUT", "/films/9999/like/1?view=summary"), responseHandler);
+        assertEquals(404, response.statusCode());
+    }
+
+    private HttpRequest requestLike(String method, String path) {
+        return HttpRequest.newBuilder()
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create("http://localhost:8080" + path))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    private HttpRequest requestGET(String path) {
+        return HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080" + path))
+                .header("Accept", "application/json")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
 }
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilmDbStorageCachedTest extends FilmDbStorageTest {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FilmDbStorageCachedTest(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    protected <T> EntityCache<T> newEntityCache() {
+        return new EntityCache<>(true, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testShouldServeRepeatedGetFilmFromCacheAndUpdateItOnLike() {
+        EntityCache<Film> filmCache = newEntityCache();
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbcTemplate, new ReferenceDataCache(100), filmCache);
+        User user = new UserDbStorage(jdbcTemplate, EntityCache.disabled())
+                .addUser(UserDbStorageTest.createNewTestUser());
+        Film film = filmStorage.addFilm(createNewTestFilm());
+
+        filmStorage.getFilm(film.getId());
+        filmStorage.getFilm(film.getId());
+        Film cached = filmStorage.getFilm(film.getId());
+        filmStorage.addLike(film.getId(), user.getId());
+
+        assertThat(cached.getLikes()).isEmpty();
+        assertThat(filmStorage.getFilm(film.getId()).getLikes()).isEqualTo(Set.of(user.getId()));
+        assertThat(filmCache.getStats().hitCount()).isEqualTo(3);
+        assertThat(filmCache.getStats().missCount()).isEqualTo(1);
+    }
+}
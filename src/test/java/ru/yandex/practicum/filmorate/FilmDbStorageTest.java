@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,21 +11,33 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.Exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.Exception.RatingNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.comparators.FilmComparator;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static ru.yandex.practicum.filmorate.storage.Constants.ASCENDING_ORDER;
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
 import static ru.yandex.practicum.filmorate.storage.DbConstants.*;
 
 @JdbcTest
@@ -33,13 +46,27 @@ import static ru.yandex.practicum.filmorate.storage.DbConstants.*;
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 public class FilmDbStorageTest {
     private final JdbcTemplate jdbcTemplate;
-    private FilmDbStorage filmStorage;
-    private UserDbStorage userStorage;
+    protected FilmStorage filmStorage;
+    protected UserStorage userStorage;
+    private ReferenceDataCache referenceDataCache;
 
     @BeforeEach
     public void initUserStorage() {
-        filmStorage = new FilmDbStorage(jdbcTemplate);
-        userStorage = new UserDbStorage(jdbcTemplate);
+        referenceDataCache = new ReferenceDataCache(100);
+        userStorage = newUserStorage();
+        filmStorage = newFilmStorage(userStorage);
+    }
+
+    protected UserStorage newUserStorage() {
+        return new UserDbStorage(jdbcTemplate, newEntityCache());
+    }
+
+    protected FilmStorage newFilmStorage(UserStorage userStorage) {
+        return new FilmDbStorage(jdbcTemplate, referenceDataCache, newEntityCache());
+    }
+
+    protected <T> EntityCache<T> newEntityCache() {
+        return EntityCache.disabled();
     }
 
     @Test
@@ -61,6 +88,24 @@ public class FilmDbStorageTest {
                 .isEqualTo(film);
     }
 
+    @Test
+    public void testShouldAddFilmsInBatch() {
+        Film film = createNewTestFilm();
+        Film film2 = createNewTestFilm();
+        film2.setGenres(List.of(new Genre(2, "Драма"), new Genre(2, "Драма"), new Genre(5, "Документальный")));
+        Film film3 = createNewTestFilm();
+        film3.setGenres(List.of());
+
+        List<Integer> ids = filmStorage.addFilms(List.of(film, film2, film3));
+
+        assertThat(ids).containsExactly(film.getId(), film2.getId(), film3.getId());
+        assertThat(filmStorage.getFilms(ids))
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("genres")
+                .containsExactly(film, film2, film3);
+        assertThat(filmStorage.getFilm(film2.getId()).getGenres())
+                .containsExactly(new Genre(2, "Драма"), new Genre(5, "Документальный"));
+    }
+
     @Test
     public void testGetFilmShouldReturnFilmByCorrectId() {
         Film film = filmStorage.addFilm(createNewTestFilm());
@@ -78,6 +123,81 @@ public class FilmDbStorageTest {
         Assertions.assertThrows(FilmNotFoundException.class, () -> filmStorage.getFilm(1000));
     }
 
+    @Test
+    public void testShouldCheckFilmExistence() {
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = filmStorage.addFilm(createNewTestFilm());
+
+        assertThat(filmStorage.exists(film.getId())).isTrue();
+        assertThat(filmStorage.exists(1000)).isFalse();
+        assertThat(filmStorage.existsAll(List.of(film.getId(), film2.getId(), film.getId()))).isTrue();
+        assertThat(filmStorage.existsAll(List.of(film.getId(), 1000))).isFalse();
+        assertThat(filmStorage.existsAll(List.of())).isTrue();
+
+        filmStorage.deleteFilm(film2.getId());
+        assertThat(filmStorage.exists(film2.getId())).isFalse();
+    }
+
+    @Test
+    public void testIdFilterShouldRejectUnknownFilmWithoutQuery() {
+        Film stored = new FilmDbStorage(jdbcTemplate, referenceDataCache, EntityCache.disabled())
+                .addFilm(createNewTestFilm());
+        QueryCountingJdbcTemplate countingJdbcTemplate = new QueryCountingJdbcTemplate(jdbcTemplate);
+        FilmDbStorage filteredStorage = new FilmDbStorage(countingJdbcTemplate, referenceDataCache,
+                newEntityCache(), true);
+        filteredStorage.loadIds();
+        Film added = filteredStorage.addFilm(createNewTestFilm());
+
+        countingJdbcTemplate.reset();
+        FilmNotFoundException exception = Assertions.assertThrows(FilmNotFoundException.class,
+                () -> filteredStorage.getFilm(added.getId() + 1));
+        assertThat(exception.getStackTrace()).isEmpty();
+        assertThat(filteredStorage.exists(-1)).isFalse();
+        assertThat(filteredStorage.existsAll(List.of(stored.getId(), 1000))).isFalse();
+        assertThat(countingJdbcTemplate.getQueryCount()).isZero();
+
+        assertThat(filteredStorage.getFilm(stored.getId()).getId()).isEqualTo(stored.getId());
+        assertThat(filteredStorage.existsAll(List.of(stored.getId(), added.getId()))).isTrue();
+        filteredStorage.deleteFilm(added.getId());
+        assertThat(filteredStorage.exists(added.getId())).isFalse();
+    }
+
+    @Test
+    public void testWritesShouldReturnFilmAsStoredWithoutReadingItBack() {
+        QueryCountingJdbcTemplate countingJdbcTemplate = new QueryCountingJdbcTemplate(jdbcTemplate);
+        FilmDbStorage countingStorage = new FilmDbStorage(countingJdbcTemplate, referenceDataCache,
+                newEntityCache());
+        User user = new UserDbStorage(jdbcTemplate, EntityCache.disabled()).addUser(
+                UserDbStorageTest.createNewTestUser());
+        countingStorage.getAllGenres().forEach(genre -> countingStorage.getGenre(genre.getId()));
+        countingStorage.getAllRatings().forEach(mpa -> countingStorage.getRating(mpa.getId()));
+        Film film = createNewTestFilm();
+        film.setMpa(new Mpa(2, null));
+        film.setGenres(List.of(new Genre(2, null), new Genre(1, null), new Genre(2, null)));
+
+        countingJdbcTemplate.reset();
+        Film added = countingStorage.addFilm(film);
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+        assertThat(added).usingRecursiveComparison().isEqualTo(countingStorage.getFilm(added.getId()));
+        assertThat(added.getGenres()).extracting(Genre::getId).containsExactly(2, 1);
+        assertThat(added.getGenres()).extracting(Genre::getName).doesNotContainNull();
+
+        countingStorage.addLike(added.getId(), user.getId());
+        Film update = createNewTestFilm();
+        update.setId(added.getId());
+        update.setName("Другое имя");
+        update.setGenres(List.of());
+        countingJdbcTemplate.reset();
+        Film updated = countingStorage.updateFilm(update);
+        assertThat(countingJdbcTemplate.getQueryCount()).isLessThanOrEqualTo(3);
+        assertThat(updated).usingRecursiveComparison().isEqualTo(countingStorage.getFilm(added.getId()));
+        assertThat(updated.getLikes()).containsExactly(user.getId());
+
+        countingJdbcTemplate.reset();
+        countingStorage.removeLike(added.getId(), user.getId());
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+    }
+
     @Test
     public void testShouldCorrectlyUpdateFilmById() {
         Film film = filmStorage.addFilm(createNewTestFilm());
@@ -91,13 +211,64 @@ public class FilmDbStorageTest {
                 .isEqualTo(film);
     }
 
+    @Test
+    public void testUpdateShouldKeepGenresInPlaceAndAppendAddedOnes() {
+        Film film = createNewTestFilm();
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null), new Genre(3, null)));
+        film = filmStorage.addFilm(film);
+        Film update = createNewTestFilm();
+        update.setId(film.getId());
+        update.setGenres(List.of(new Genre(4, null), new Genre(3, null), new Genre(2, null)));
+
+        Film updated = filmStorage.updateFilm(update);
+
+        assertThat(updated.getGenres()).extracting(Genre::getId).containsExactly(2, 3, 4);
+        assertThat(filmStorage.getFilm(film.getId()).getGenres()).extracting(Genre::getId).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    public void testUpdateShouldWriteOnlyChangedGenreRows() {
+        QueryCountingJdbcTemplate countingJdbcTemplate = new QueryCountingJdbcTemplate(jdbcTemplate);
+        FilmDbStorage countingStorage = new FilmDbStorage(countingJdbcTemplate, referenceDataCache,
+                EntityCache.disabled());
+        countingStorage.getAllGenres().forEach(genre -> countingStorage.getGenre(genre.getId()));
+        countingStorage.getAllRatings().forEach(mpa -> countingStorage.getRating(mpa.getId()));
+        Film film = createNewTestFilm();
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        int filmId = countingStorage.addFilm(film).getId();
+        Map<Integer, Integer> rowIds = genreRowIds(filmId);
+
+        Film update = createNewTestFilm();
+        update.setId(filmId);
+        update.setGenres(List.of(new Genre(2, null), new Genre(1, null)));
+        countingJdbcTemplate.reset();
+        countingStorage.updateFilm(update);
+        // film row, stored genres and likes; no genre writes
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(3);
+        assertThat(genreRowIds(filmId)).isEqualTo(rowIds);
+
+        update.setGenres(List.of(new Genre(2, null), new Genre(5, null)));
+        countingJdbcTemplate.reset();
+        Film updated = countingStorage.updateFilm(update);
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(5);
+        assertThat(genreRowIds(filmId)).containsEntry(2, rowIds.get(2)).containsKeys(5).doesNotContainKey(1);
+        assertThat(updated).usingRecursiveComparison().isEqualTo(countingStorage.getFilm(filmId));
+    }
+
+    private Map<Integer, Integer> genreRowIds(int filmId) {
+        return jdbcTemplate.query("select \"genre_id\", \"id\" from \"film_genres\" where \"film_id\" = ?",
+                (rs, rowNum) -> Map.entry(rs.getInt("genre_id"), rs.getInt("id")), filmId)
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
     @Test
     public void testShouldThrowDataIntegrityViolationException() {
         Film film = filmStorage.addFilm(createNewTestFilm());
         film.setName("Другое имя");
         film.setDescription("другой фильм");
         film.setId(1000);
-        Assertions.assertDoesNotThrow(() -> filmStorage.updateFilm(film));
+        Assertions.assertThrows(FilmNotFoundException.class, () -> filmStorage.updateFilm(film));
         Assertions.assertThrows(FilmNotFoundException.class, () -> filmStorage.getFilm(1000));
     }
 
@@ -112,12 +283,207 @@ public class FilmDbStorageTest {
         assertThat(films).isNotNull().containsAll(List.of(film, film2, film3));
     }
 
+    @Test
+    public void testHasLikeShouldFollowStoredLikes() {
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        Film film = filmStorage.addFilm(createNewTestFilm());
+
+        assertThat(filmStorage.hasLike(film.getId(), user.getId())).isFalse();
+        filmStorage.addLike(film.getId(), user.getId());
+        assertThat(filmStorage.hasLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.hasLike(film.getId() + 1, user.getId())).isFalse();
+        filmStorage.removeLike(film.getId(), user.getId());
+        assertThat(filmStorage.hasLike(film.getId(), user.getId())).isFalse();
+    }
+
+    @Test
+    public void testGetFilmsShouldLoadLikesAndGenresOfEveryFilm() {
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        User user2 = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = createNewTestFilm();
+        film2.setMpa(new Mpa(3, "PG-13"));
+        film2.setGenres(List.of(new Genre(4, "Триллер"), new Genre(2, "Драма")));
+        film2 = filmStorage.addFilm(film2);
+        Film film3 = filmStorage.addFilm(createNewTestFilm());
+        filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLike(film2.getId(), user.getId());
+        filmStorage.addLike(film2.getId(), user2.getId());
+
+        List<Film> films = filmStorage.getFilms();
+
+        assertThat(films)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(filmStorage.getFilm(film.getId()),
+                        filmStorage.getFilm(film2.getId()),
+                        filmStorage.getFilm(film3.getId()));
+        assertThat(films.get(1).getLikes()).isEqualTo(Set.of(user.getId(), user2.getId()));
+        assertThat(films.get(1).getGenres()).containsExactly(new Genre(4, "Триллер"), new Genre(2, "Драма"));
+        assertThat(films.get(2).getLikes()).isEmpty();
+    }
+
+    @Test
+    public void testShouldReturnFilmsByIdsInRequestedOrder() {
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = filmStorage.addFilm(createNewTestFilm());
+        Film film3 = filmStorage.addFilm(createNewTestFilm());
+
+        List<Film> films = filmStorage.getFilms(List.of(film3.getId(), 1000, film.getId()));
+
+        assertThat(films).containsExactly(film3, film);
+        assertThat(filmStorage.getFilms(List.of())).isEmpty();
+        assertThat(films).doesNotContain(film2);
+    }
+
+    @Test
+    public void testShouldReturnFilmsPageAfterId() {
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = filmStorage.addFilm(createNewTestFilm());
+        Film film3 = filmStorage.addFilm(createNewTestFilm());
+
+        assertThat(filmStorage.getFilms(0, 2)).containsExactly(film, film2);
+        assertThat(filmStorage.getFilms(film2.getId(), 2)).containsExactly(film3);
+        assertThat(filmStorage.getFilms(film3.getId(), 2)).isEmpty();
+    }
+
+    @Test
+    public void testForEachFilmShouldStreamSameFilmsAsGetFilms() {
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        User user2 = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = createNewTestFilm();
+        film2.setGenres(List.of(new Genre(3, "Мультфильм"), new Genre(1, "Комедия")));
+        film2 = filmStorage.addFilm(film2);
+        Film film3 = createNewTestFilm();
+        film3.setGenres(List.of());
+        filmStorage.addFilm(film3);
+        filmStorage.addLike(film.getId(), user2.getId());
+        filmStorage.addLike(film2.getId(), user.getId());
+        filmStorage.addLike(film2.getId(), user2.getId());
+
+        List<Film> streamed = new ArrayList<>();
+        filmStorage.forEachFilm(streamed::add);
+
+        assertThat(streamed)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(filmStorage.getFilms());
+    }
+
+    @Test
+    public void testSummariesShouldMatchFilmsWithLikeCounts() {
+        List<User> users = List.of(userStorage.addUser(UserDbStorageTest.createNewTestUser()),
+                userStorage.addUser(UserDbStorageTest.createNewTestUser()));
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = createNewTestFilm();
+        film2.setGenres(List.of(new Genre(4, "Триллер"), new Genre(2, "Драма")));
+        film2 = filmStorage.addFilm(film2);
+        Film film3 = filmStorage.addFilm(createNewTestFilm());
+        filmStorage.addLike(film2.getId(), users.get(0).getId());
+        filmStorage.addLike(film2.getId(), users.get(1).getId());
+        filmStorage.addLike(film3.getId(), users.get(0).getId());
+
+        assertThat(filmStorage.getFilmSummaries())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(toSummaries(filmStorage.getFilms()));
+        assertThat(filmStorage.getFilmSummaries(film.getId(), 1))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(toSummaries(filmStorage.getFilms(film.getId(), 1)));
+        assertThat(filmStorage.getFilmSummaries(List.of(film3.getId(), 1000, film.getId())))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(toSummaries(filmStorage.getFilms(List.of(film3.getId(), film.getId()))));
+        assertThat(filmStorage.getPopularFilmSummaries(2, DESCENDING_ORDER))
+                .extracting(FilmSummary::getId, FilmSummary::getLikeCount)
+                .containsExactly(tuple(film2.getId(), 2), tuple(film3.getId(), 1));
+        assertThat(filmStorage.getPopularFilmSummaries(1, ASCENDING_ORDER))
+                .extracting(FilmSummary::getId)
+                .containsExactly(film.getId());
+    }
+
+    @Test
+    public void testSummariesShouldNotReadLikes() {
+        QueryCountingJdbcTemplate countingJdbcTemplate = new QueryCountingJdbcTemplate(jdbcTemplate);
+        FilmStorage countingStorage = new FilmDbStorage(countingJdbcTemplate, referenceDataCache,
+                EntityCache.disabled());
+        User user = new UserDbStorage(jdbcTemplate, EntityCache.disabled())
+                .addUser(UserDbStorageTest.createNewTestUser());
+        Film film = countingStorage.addFilm(createNewTestFilm());
+        countingStorage.addFilm(createNewTestFilm());
+        countingStorage.addLike(film.getId(), user.getId());
+        countingStorage.getAllRatings();
+
+        countingJdbcTemplate.reset();
+        countingStorage.getFilmSummaries();
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+
+        countingJdbcTemplate.reset();
+        countingStorage.getFilmSummaries(List.of(film.getId()));
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+    }
+
+    private static List<FilmSummary> toSummaries(List<Film> films) {
+        return films.stream()
+                .map(FilmSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testShouldReturnLikeCountsOfAllFilms() {
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        User user2 = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film film2 = filmStorage.addFilm(createNewTestFilm());
+        filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLike(film.getId(), user2.getId());
+
+        assertThat(filmStorage.getLikeCounts()).isEqualTo(Map.of(film.getId(), 2, film2.getId(), 0));
+    }
+
+    @Test
+    public void testShouldKeepLikeCountInSyncWithLikes() {
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        User user2 = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLike(film.getId(), user2.getId());
+        filmStorage.removeLike(film.getId(), user.getId());
+        filmStorage.removeLike(film.getId(), user.getId());
+
+        assertThat(filmStorage.getLikeCounts()).containsEntry(film.getId(), 1);
+    }
+
+    @Test
+    public void testGetPopularFilmsShouldMatchInMemorySortIncludingTies() {
+        List<User> users = List.of(userStorage.addUser(UserDbStorageTest.createNewTestUser()),
+                userStorage.addUser(UserDbStorageTest.createNewTestUser()),
+                userStorage.addUser(UserDbStorageTest.createNewTestUser()));
+        int[] likes = {1, 0, 3, 1, 2, 0, 3};
+        for (int likeCount : likes) {
+            Film film = filmStorage.addFilm(createNewTestFilm());
+            for (int i = 0; i < likeCount; i++) {
+                filmStorage.addLike(film.getId(), users.get(i).getId());
+            }
+        }
+
+        for (String order : List.of(ASCENDING_ORDER, DESCENDING_ORDER)) {
+            for (int count : new int[]{1, 4, 10}) {
+                List<Film> expected = filmStorage.getFilms().stream()
+                        .sorted((f1, f2) -> new FilmComparator().compare(f1, f2, order))
+                        .limit(count)
+                        .collect(Collectors.toList());
+                assertThat(filmStorage.getPopularFilms(count, order))
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .containsExactlyElementsOf(expected);
+            }
+        }
+    }
+
     @Test
     public void testShouldAddLike() {
         Film film = filmStorage.addFilm(createNewTestFilm());
         User user = UserDbStorageTest.createNewTestUser();
         user = userStorage.addUser(user);
-        Film updated = filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLike(film.getId(), user.getId());
+        Film updated = filmStorage.getFilm(film.getId());
         assertThat(updated).isNotNull();
         Assertions.assertEquals(updated.getLikes(), Set.of(user.getId()));
     }
@@ -128,7 +494,9 @@ public class FilmDbStorageTest {
         User user = UserDbStorageTest.createNewTestUser();
         user = userStorage.addUser(user);
         filmStorage.addLike(film.getId(), user.getId());
-        Film updated = filmStorage.removeLike(film.getId(), user.getId());
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isFalse();
+        Film updated = filmStorage.getFilm(film.getId());
         assertThat(updated).isNotNull();
         Assertions.assertEquals(updated.getLikes(), Collections.EMPTY_SET);
     }
@@ -162,8 +530,38 @@ public class FilmDbStorageTest {
         assertThat(filmStorage.getRating(1)).isNotNull().isEqualTo(new Mpa(1, "G"));
     }
 
+    @Test
+    public void testShouldServeReferenceDataFromCache() {
+        filmStorage.addFilm(createNewTestFilm());
+        filmStorage.addFilm(createNewTestFilm());
+        filmStorage.getAllGenres();
+        filmStorage.getAllRatings();
+        filmStorage.getGenre(1);
+        filmStorage.getRating(1);
+        CacheStats warmedUp = referenceDataCache.getStats();
+
+        filmStorage.getAllGenres();
+        filmStorage.getAllRatings();
+        filmStorage.getGenre(1);
+        filmStorage.getRating(1);
+        filmStorage.getFilms();
+        CacheStats stats = referenceDataCache.getStats().minus(warmedUp);
+
+        assertThat(stats.missCount()).isZero();
+        assertThat(stats.hitCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testShouldReloadReferenceDataAfterInvalidation() {
+        filmStorage.getRating(1);
+        referenceDataCache.invalidateAll();
+        filmStorage.getRating(1);
+
+        assertThat(referenceDataCache.getStats().missCount()).isEqualTo(2);
+        Assertions.assertThrows(RatingNotFoundException.class, () -> filmStorage.getRating(1000));
+    }
 
-    private Film createNewTestFilm() {
+    public static Film createNewTestFilm() {
         Film newFilm = new Film();
         newFilm.setName("test film");
         newFilm.setDuration(100);
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FilmLikeCounters;
+import ru.yandex.practicum.filmorate.service.FilmPopularityIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
+
+class FilmLikeCountersTest {
+    private FilmPopularityIndex index;
+    private FilmLikeCounters counters;
+
+    @BeforeEach
+    public void initCounters() {
+        index = new FilmPopularityIndex();
+        index.rebuild(Map.of(1, 3, 2, 2, 3, 0));
+        counters = new FilmLikeCounters(index, true, Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void testChangesShouldReachIndexOnlyOnFold() {
+        counters.increment(3);
+        counters.increment(3);
+        counters.increment(3);
+        counters.increment(3);
+        counters.decrement(1);
+
+        assertThat(index.getTopFilmIds(3, DESCENDING_ORDER)).containsExactly(1, 2, 3);
+        counters.fold();
+        assertThat(index.getTopFilmIds(3, DESCENDING_ORDER)).containsExactly(3, 1, 2);
+        assertThat(index.getLikeCount(3)).isEqualTo(4);
+        counters.fold();
+        assertThat(index.getLikeCount(3)).isEqualTo(4);
+        assertThat(index.getTopFilmIds(3, DESCENDING_ORDER)).containsExactly(3, 1, 2);
+    }
+
+    @Test
+    public void testShouldKeepChangesOfFilmsMissingFromIndex() {
+        counters.increment(42);
+        counters.fold();
+
+        assertThat(index.getTopFilmIds(10, DESCENDING_ORDER)).containsExactly(1, 2, 3);
+        assertThat(index.getLikeCount(42)).isZero();
+        index.setLikeCount(42, 0);
+        counters.fold();
+        assertThat(index.getLikeCount(42)).isEqualTo(1);
+        assertThat(index.getTopFilmIds(10, DESCENDING_ORDER)).containsExactly(1, 2, 42, 3);
+    }
+
+    @Test
+    public void testDiscardedChangesShouldNotReachIndex() {
+        counters.increment(3);
+        counters.discard();
+        counters.fold();
+
+        assertThat(index.getLikeCount(3)).isZero();
+    }
+
+    @Test
+    public void testConcurrentLikesOfHotFilmShouldNotBeLostWhileFolding() throws Exception {
+        int threads = 8;
+        int likesPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> likers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            likers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < likesPerThread; i++) {
+                    counters.increment(3);
+                    if (thread % 2 == 0 && i % 2 == 0) {
+                        counters.decrement(3);
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> folder = executor.submit(() -> {
+            start.await();
+            while (likers.stream().anyMatch(future -> !future.isDone())) {
+                counters.fold();
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> liker : likers) {
+            liker.get();
+        }
+        folder.get();
+        executor.shutdown();
+        counters.fold();
+
+        assertThat(index.getLikeCount(3)).isEqualTo(threads * likesPerThread - threads / 2 * likesPerThread / 2);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.comparators.FilmComparator;
+import ru.yandex.practicum.filmorate.service.FilmPopularityIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.storage.Constants.ASCENDING_ORDER;
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
+
+class FilmPopularityIndexTest {
+    private FilmPopularityIndex index;
+
+    @BeforeEach
+    public void initIndex() {
+        index = new FilmPopularityIndex();
+        index.rebuild(Map.of(1, 0, 2, 5, 3, 2, 4, 5, 5, 0));
+    }
+
+    @Test
+    public void testShouldReturnTopFilmsInDescendingOrderWithTiesByAscendingId() {
+        assertThat(index.getTopFilmIds(10, DESCENDING_ORDER)).containsExactly(2, 4, 3, 1, 5);
+        assertThat(index.getTopFilmIds(3, DESCENDING_ORDER)).containsExactly(2, 4, 3);
+    }
+
+    @Test
+    public void testShouldReturnTopFilmsInAscendingOrderWithTiesByAscendingId() {
+        assertThat(index.getTopFilmIds(10, ASCENDING_ORDER)).containsExactly(1, 5, 3, 2, 4);
+        assertThat(index.getTopFilmIds(1, ASCENDING_ORDER)).containsExactly(1);
+    }
+
+    @Test
+    public void testShouldMoveFilmWhenLikeCountChanges() {
+        index.setLikeCount(5, 6);
+        index.setLikeCount(2, 4);
+        index.removeFilm(4);
+
+        assertThat(index.getTopFilmIds(10, DESCENDING_ORDER)).containsExactly(5, 2, 3, 1);
+    }
+
+    @Test
+    public void testShouldMatchSortByFilmComparator() {
+        Random random = new Random(42);
+        List<Film> films = new ArrayList<>();
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int id = 1; id <= 200; id++) {
+            Film film = new Film();
+            film.setId(id);
+            int likes = random.nextInt(10);
+            IntStream.range(0, likes).forEach(film.getLikes()::add);
+            films.add(film);
+            counts.put(id, likes);
+        }
+        index.rebuild(counts);
+
+        for (String order : List.of(ASCENDING_ORDER, DESCENDING_ORDER)) {
+            List<Integer> expected = films.stream()
+                    .sorted((f1, f2) -> new FilmComparator().compare(f1, f2, order))
+                    .limit(50)
+                    .map(Film::getId)
+                    .collect(Collectors.toList());
+            assertThat(index.getTopFilmIds(50, order)).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTest {
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    public void initIndex() {
+        index = new FilmSearchIndex();
+    }
+
+    private static Film film(int id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+
+    @Test
+    public void testShouldTokenizeCyrillicAndLatinText() {
+        assertThat(FilmSearchIndex.tokenize("Ёжик в тумане, 1975 (Norstein's \"Hedgehog\")"))
+                .containsExactly("ежик", "в", "тумане", "1975", "norstein", "s", "hedgehog");
+        assertThat(FilmSearchIndex.tokenize(" -- ")).isEmpty();
+        assertThat(FilmSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    public void testShouldRankRarerAndNameMatchesHigher() {
+        index.addFilm(film(1, "Сталкер", "Фильм о зоне и о людях"));
+        index.addFilm(film(2, "Солярис", "Фильм о планете и о людях"));
+        index.addFilm(film(3, "Зеркало", "Фильм о памяти"));
+        index.addFilm(film(4, "Зона", "Документальный фильм"));
+
+        // "зоне" and "зона" are different terms: no stemming
+        assertThat(index.search("зона", 10)).containsExactly(4);
+        assertThat(index.search("фильм о людях", 10)).containsExactly(1, 2, 3, 4);
+        assertThat(index.search("фильм о людях", 2)).containsExactly(1, 2);
+        assertThat(index.search("солярис людях", 10)).containsExactly(2, 1);
+        assertThat(index.search("ЗЕРКАЛО", 10)).containsExactly(3);
+        assertThat(index.search("нет такого", 10)).isEmpty();
+    }
+
+    @Test
+    public void testShouldReindexUpdatedFilms() {
+        index.addFilm(film(1, "Сталкер", "Зона"));
+        index.addFilm(film(2, "Солярис", "Океан"));
+
+        index.addFilm(film(1, "Андрей Рублёв", "Иконописец"));
+        assertThat(index.search("сталкер", 10)).isEmpty();
+        assertThat(index.search("зона", 10)).isEmpty();
+        assertThat(index.search("рублев", 10)).containsExactly(1);
+        assertThat(index.search("солярис", 10)).containsExactly(2);
+    }
+
+    @Test
+    public void testRebuildShouldReplaceIndex() {
+        index.addFilm(film(1, "Сталкер", null));
+
+        index.rebuild(consumer -> List.of(film(5, "Ностальгия", null), film(3, "Жертвоприношение", null))
+                .forEach(consumer));
+
+        assertThat(index.search("сталкер", 10)).isEmpty();
+        assertThat(index.search("ностальгия жертвоприношение", 10)).containsExactly(3, 5);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendGraphTest {
+    private FriendGraph graph;
+
+    @BeforeEach
+    public void initGraph() {
+        graph = new FriendGraph();
+    }
+
+    @Test
+    public void testShouldRankFriendsOfFriendsByMutualFriends() {
+        graph.addRequest(1, 2);
+        graph.addRequest(1, 3);
+        graph.addRequest(4, 2);
+        graph.addRequest(4, 3);
+        graph.addRequest(5, 3);
+        graph.addRequest(6, 7);
+
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(4, 5);
+        assertThat(graph.suggestFriends(1, 1)).containsExactly(4);
+        assertThat(graph.suggestFriends(6, 10)).isEmpty();
+        assertThat(graph.suggestFriends(42, 10)).isEmpty();
+    }
+
+    @Test
+    public void testShouldFollowRequestSemantics() {
+        // 2 is a friend of 1 only after approving 1's request
+        graph.addRequest(2, 1);
+        graph.addRequest(3, 2);
+        assertThat(graph.suggestFriends(1, 10)).isEmpty();
+
+        graph.approveRequest(2, 1);
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(3);
+
+        // an approval without a request is ignored, like the UPDATE in the database
+        graph.approveRequest(3, 4);
+        graph.addRequest(4, 2);
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(3, 4);
+
+        graph.removeRequest(2, 1);
+        assertThat(graph.suggestFriends(1, 10)).isEmpty();
+    }
+
+    @Test
+    public void testShouldNotSuggestExistingFriends() {
+        graph.addRequest(1, 2);
+        graph.addRequest(2, 3);
+        graph.addRequest(3, 2);
+        graph.approveRequest(3, 2);
+        graph.addRequest(1, 3);
+
+        assertThat(graph.suggestFriends(1, 10)).isEmpty();
+        // the request from 1 is not approved, so 1 is not a friend of 3 yet
+        assertThat(graph.suggestFriends(3, 10)).containsExactly(1);
+    }
+
+    @Test
+    public void testShouldMatchBruteForceCommonFriends() {
+        Random random = new Random(7);
+        Map<Integer, Set<Integer>> friends = new HashMap<>();
+        List<int[]> requests = new ArrayList<>();
+        for (int from = 1; from <= 200; from++) {
+            for (int j = random.nextInt(20); j > 0; j--) {
+                int to = random.nextInt(200) + 1;
+                if (to != from && friends.computeIfAbsent(from, id -> new HashSet<>()).add(to)) {
+                    boolean approved = random.nextBoolean();
+                    if (approved) {
+                        friends.computeIfAbsent(to, id -> new HashSet<>()).add(from);
+                    }
+                    requests.add(new int[]{from, to, approved ? 1 : 0});
+                }
+            }
+        }
+        graph.rebuild(consumer -> requests.forEach(r -> consumer.accept(r[0], r[1], r[2] == 1)));
+
+        for (int userId = 1; userId <= 200; userId++) {
+            assertThat(graph.suggestFriends(userId, 5)).isEqualTo(bruteForce(friends, userId, 5));
+        }
+    }
+
+    private static List<Integer> bruteForce(Map<Integer, Set<Integer>> friends, int userId, int limit) {
+        Set<Integer> own = friends.getOrDefault(userId, Set.of());
+        Map<Integer, Long> mutual = new HashMap<>();
+        friends.forEach((otherId, otherFriends) -> {
+            if (otherId != userId && !own.contains(otherId)) {
+                long count = otherFriends.stream().filter(own::contains).count();
+                if (count > 0) {
+                    mutual.put(otherId, count);
+                }
+            }
+        });
+        return mutual.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
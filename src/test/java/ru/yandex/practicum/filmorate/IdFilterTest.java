@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.IdFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdFilterTest {
+    @Test
+    public void testShouldContainOnlyAddedIds() {
+        IdFilter filter = new IdFilter(true);
+        filter.add(1);
+        filter.add(63);
+        filter.add(64);
+
+        assertThat(filter.mightContain(1)).isTrue();
+        assertThat(filter.mightContain(63)).isTrue();
+        assertThat(filter.mightContain(64)).isTrue();
+        assertThat(filter.mightContain(0)).isFalse();
+        assertThat(filter.mightContain(2)).isFalse();
+        assertThat(filter.mightContain(65)).isFalse();
+        assertThat(filter.mightContain(-1)).isFalse();
+        assertThat(filter.mightContain(Integer.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    public void testShouldKeepIdsWhenGrowing() {
+        IdFilter filter = new IdFilter(true);
+        for (int id = 1; id <= 10_000; id += 3) {
+            filter.add(id);
+        }
+
+        for (int id = 1; id <= 10_001; id++) {
+            assertThat(filter.mightContain(id)).isEqualTo(id % 3 == 1);
+        }
+    }
+
+    @Test
+    public void testShouldForgetRemovedIds() {
+        IdFilter filter = new IdFilter(true);
+        filter.add(5);
+        filter.add(6);
+
+        filter.remove(5);
+        filter.remove(1000);
+        filter.remove(-1);
+
+        assertThat(filter.mightContain(5)).isFalse();
+        assertThat(filter.mightContain(6)).isTrue();
+    }
+
+    @Test
+    public void testDisabledFilterShouldLetEveryIdThrough() {
+        IdFilter filter = IdFilter.disabled();
+        filter.add(1);
+
+        assertThat(filter.isEnabled()).isFalse();
+        assertThat(filter.mightContain(1)).isTrue();
+        assertThat(filter.mightContain(1000)).isTrue();
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.Exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.Exception.RatingNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryFilmStorageTest extends FilmDbStorageTest {
+
+    @Autowired
+    public InMemoryFilmStorageTest(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    protected UserStorage newUserStorage() {
+        return new InMemoryUserStorage();
+    }
+
+    @Override
+    protected FilmStorage newFilmStorage(UserStorage userStorage) {
+        return new InMemoryFilmStorage((InMemoryUserStorage) userStorage);
+    }
+
+    @Override
+    @Test
+    public void testShouldAddNewFilm() {
+        Film film = filmStorage.addFilm(createNewTestFilm());
+
+        assertThat(filmStorage.getFilm(film.getId()))
+                .usingRecursiveComparison()
+                .isEqualTo(film);
+    }
+
+    @Override
+    @Test
+    public void testShouldServeReferenceDataFromCache() {
+        assertThat(filmStorage.getAllGenres()).hasSize(6);
+        assertThat(filmStorage.getAllRatings()).hasSize(5);
+    }
+
+    @Override
+    @Test
+    public void testShouldReloadReferenceDataAfterInvalidation() {
+        Assertions.assertThrows(RatingNotFoundException.class, () -> filmStorage.getRating(1000));
+        Assertions.assertThrows(GenreNotFoundException.class, () -> filmStorage.getGenre(1000));
+    }
+
+    @Test
+    public void testShouldRejectUnknownReferences() {
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        Film withUnknownGenre = createNewTestFilm();
+        withUnknownGenre.setGenres(List.of(new Genre(1000, "Нет такого")));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> filmStorage.addFilm(withUnknownGenre));
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> filmStorage.addLike(film.getId(), 1000));
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> filmStorage.addLike(1000, 1));
+    }
+
+    @Test
+    public void testConcurrentLikesShouldNotBeLost() throws Exception {
+        Film film = filmStorage.addFilm(createNewTestFilm());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            users.add(userStorage.addUser(UserDbStorageTest.createNewTestUser()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User user : users) {
+                futures.add(executor.submit(() -> filmStorage.addLike(film.getId(), user.getId())));
+                futures.add(executor.submit(() -> filmStorage.addFilm(createNewTestFilm())));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(filmStorage.getFilm(film.getId()).getLikes()).hasSize(users.size());
+        assertThat(filmStorage.getLikeCounts()).containsEntry(film.getId(), users.size());
+        assertThat(filmStorage.getFilms()).hasSize(users.size() + 1)
+                .extracting(Film::getId)
+                .doesNotHaveDuplicates();
+    }
+}
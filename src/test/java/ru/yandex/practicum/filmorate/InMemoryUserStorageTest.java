@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryUserStorageTest extends UserDbStorageTest {
+
+    @Autowired
+    InMemoryUserStorageTest(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    protected UserStorage newUserStorage() {
+        return new InMemoryUserStorage();
+    }
+
+    @Override
+    @Test
+    public void testShouldAddNewUser() {
+        User newUser = userStorage.addUser(createNewTestUser());
+
+        assertThat(userStorage.getUser(newUser.getId()))
+                .usingRecursiveComparison()
+                .isEqualTo(newUser);
+    }
+
+    @Override
+    @Test
+    public void testShouldLoadUsersWithFriendsWithoutQueryPerUser() {
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+        userStorage.addFriend(user1.getId(), user2.getId());
+        userStorage.approveFriend(user1.getId(), user2.getId());
+
+        assertThat(userStorage.getUsers())
+                .extracting(User::getFriends)
+                .containsExactly(Set.of(user2.getId()), Set.of(user1.getId()));
+    }
+
+    @Test
+    public void testConcurrentFriendRequestsShouldNotBeLost() throws Exception {
+        User user = userStorage.addUser(createNewTestUser());
+        List<User> friends = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            friends.add(userStorage.addUser(createNewTestUser()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User friend : friends) {
+                futures.add(executor.submit(() -> {
+                    userStorage.addFriend(friend.getId(), user.getId());
+                    userStorage.approveFriend(friend.getId(), user.getId());
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(userStorage.getUser(user.getId()).getFriends()).hasSize(friends.size());
+        assertThat(userStorage.getUserFriends(user.getId())).containsExactlyElementsOf(friends);
+    }
+}
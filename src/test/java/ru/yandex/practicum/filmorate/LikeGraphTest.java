@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeGraphTest {
+    private LikeGraph graph;
+
+    @BeforeEach
+    public void initGraph() {
+        graph = new LikeGraph(100);
+    }
+
+    @Test
+    public void testShouldRecommendFilmsLikedByUsersWithOverlappingLikes() {
+        graph.addLike(1, 1);
+        graph.addLike(2, 1);
+        graph.addLike(1, 2);
+        graph.addLike(2, 2);
+        graph.addLike(3, 2);
+        graph.addLike(4, 2);
+        graph.addLike(1, 3);
+        graph.addLike(4, 3);
+        graph.addLike(5, 3);
+        graph.addLike(6, 4);
+
+        // user 2 shares two films with user 1, user 3 shares one
+        assertThat(graph.recommendFilms(1, 10)).containsExactly(4, 3, 5);
+        assertThat(graph.recommendFilms(1, 2)).containsExactly(4, 3);
+        assertThat(graph.recommendFilms(4, 10)).isEmpty();
+        assertThat(graph.recommendFilms(42, 10)).isEmpty();
+    }
+
+    @Test
+    public void testShouldFollowLikeRemoval() {
+        graph.addLike(1, 1);
+        graph.addLike(1, 2);
+        graph.addLike(2, 2);
+
+        assertThat(graph.recommendFilms(1, 10)).containsExactly(2);
+        graph.removeLike(1, 2);
+        assertThat(graph.recommendFilms(1, 10)).isEmpty();
+        graph.addLike(1, 2);
+        graph.removeLike(1, 1);
+        assertThat(graph.recommendFilms(1, 10)).isEmpty();
+    }
+
+    @Test
+    public void testRebuildShouldReplaceGraph() {
+        graph.addLike(7, 1);
+        Film first = new Film();
+        first.setId(1);
+        first.setLikes(Set.of(1, 2));
+        Film second = new Film();
+        second.setId(2);
+        second.setLikes(Set.of(2));
+
+        graph.rebuild(consumer -> List.of(first, second).forEach(consumer));
+
+        assertThat(graph.recommendFilms(1, 10)).containsExactly(2);
+    }
+
+    @Test
+    public void testShouldMatchBruteForceScoringWhenAllNeighboursAreUsed() {
+        graph = new LikeGraph(Integer.MAX_VALUE);
+        Random random = new Random(7);
+        Map<Integer, Set<Integer>> filmsByUser = new HashMap<>();
+        for (int userId = 1; userId <= 300; userId++) {
+            Set<Integer> films = new HashSet<>();
+            int likes = random.nextInt(15);
+            for (int i = 0; i < likes; i++) {
+                films.add(1 + random.nextInt(80));
+            }
+            filmsByUser.put(userId, films);
+            for (int filmId : films) {
+                graph.addLike(filmId, userId);
+            }
+        }
+
+        for (int userId = 1; userId <= 300; userId += 13) {
+            assertThat(graph.recommendFilms(userId, 5)).isEqualTo(bruteForce(filmsByUser, userId, 5));
+        }
+    }
+
+    @Test
+    public void testShouldUseOnlyNearestNeighbours() {
+        graph = new LikeGraph(1);
+        graph.addLike(1, 1);
+        graph.addLike(2, 1);
+        graph.addLike(1, 2);
+        graph.addLike(2, 2);
+        graph.addLike(3, 2);
+        graph.addLike(1, 3);
+        graph.addLike(4, 3);
+
+        assertThat(graph.recommendFilms(1, 10)).containsExactly(3);
+    }
+
+    private static List<Integer> bruteForce(Map<Integer, Set<Integer>> filmsByUser, int userId, int limit) {
+        Set<Integer> liked = filmsByUser.get(userId);
+        Map<Integer, Long> scores = new HashMap<>();
+        filmsByUser.forEach((otherId, films) -> {
+            if (otherId == userId) {
+                return;
+            }
+            long shared = films.stream().filter(liked::contains).count();
+            if (shared == 0) {
+                return;
+            }
+            films.stream()
+                    .filter(filmId -> !liked.contains(filmId))
+                    .forEach(filmId -> scores.merge(filmId, shared, Long::sum));
+        });
+        return new ArrayList<>(scores.entrySet()).stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,266 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmLikeCounters;
+import ru.yandex.practicum.filmorate.service.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.yandex.practicum.filmorate.storage.Constants.DESCENDING_ORDER;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class LikeWriteBehindQueueTest {
+    private final JdbcTemplate jdbcTemplate;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+
+    @BeforeEach
+    public void initStorages() {
+        userStorage = new UserDbStorage(jdbcTemplate, EntityCache.disabled());
+        filmStorage = new FilmDbStorage(jdbcTemplate, new ReferenceDataCache(100), EntityCache.disabled());
+    }
+
+    // The flusher thread is not started: flushes run in the test transaction.
+    private FilmService newFilmService(LikeWriteBehindQueue queue) {
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+        FilmService filmService = new FilmService(filmStorage, new UserService(userStorage, new FriendGraph()),
+                popularityIndex, true, new FilmLikeCounters(popularityIndex, true, Duration.ofSeconds(1)), queue,
+                new LikeGraph(100), new FilmSearchIndex());
+        filmService.rebuildPopularityIndex();
+        return filmService;
+    }
+
+    private LikeWriteBehindQueue newQueue(int capacity, int batchSize) {
+        return new LikeWriteBehindQueue(filmStorage, true, capacity, batchSize, Duration.ofSeconds(1));
+    }
+
+    private int storedLikeCount(int filmId) {
+        return jdbcTemplate.queryForObject("select \"like_count\" from \"films\" where \"id\" = ?",
+                Integer.class, filmId);
+    }
+
+    @Test
+    public void testPendingLikesShouldBeVisibleBeforeFlush() {
+        LikeWriteBehindQueue queue = newQueue(100, 10);
+        FilmService filmService = newFilmService(queue);
+        Film film = filmService.addFilm(FilmDbStorageTest.createNewTestFilm());
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+
+        assertThat(filmService.addLike(film.getId(), user.getId()).getLikes()).containsExactly(user.getId());
+
+        assertThat(filmStorage.getFilm(film.getId()).getLikes()).isEmpty();
+        assertThat(filmService.getFilm(film.getId()).getLikes()).containsExactly(user.getId());
+        assertThat(filmService.getFilms().get(0).getLikes()).containsExactly(user.getId());
+        assertThat(filmService.getPopularFilms(1, DESCENDING_ORDER).get(0).getLikes())
+                .containsExactly(user.getId());
+        assertThat(filmService.getPopularFilmSummaries(1, DESCENDING_ORDER).get(0).getLikeCount()).isEqualTo(1);
+
+        queue.flush();
+
+        assertThat(queue.getPendingCount()).isZero();
+        assertThat(filmStorage.getFilm(film.getId()).getLikes()).containsExactly(user.getId());
+        assertThat(storedLikeCount(film.getId())).isEqualTo(1);
+    }
+
+    @Test
+    public void testLikeFollowedByUnlikeShouldCancelOut() {
+        LikeWriteBehindQueue queue = newQueue(100, 10);
+        FilmService filmService = newFilmService(queue);
+        Film film = filmStorage.addFilm(FilmDbStorageTest.createNewTestFilm());
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+
+        filmService.addLike(film.getId(), user.getId());
+        assertThat(filmService.removeLike(film.getId(), user.getId()).getLikes()).isEmpty();
+
+        assertThat(queue.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void testUnlikeWithoutLikeShouldNotBeQueued() {
+        LikeWriteBehindQueue queue = newQueue(100, 10);
+        FilmService filmService = newFilmService(queue);
+        Film film = filmStorage.addFilm(FilmDbStorageTest.createNewTestFilm());
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+
+        assertThat(queue.enqueue(film.getId(), user.getId(), false, false)).isFalse();
+        assertThat(filmService.removeLike(film.getId(), user.getId()).getLikes()).isEmpty();
+
+        assertThat(queue.getPendingCount()).isZero();
+        assertThat(filmService.getFilmSummaries().get(0).getLikeCount()).isZero();
+    }
+
+    @Test
+    public void testUnlikeOfStoredLikeShouldBeFlushed() {
+        LikeWriteBehindQueue queue = newQueue(100, 10);
+        FilmService filmService = newFilmService(queue);
+        Film film = filmStorage.addFilm(FilmDbStorageTest.createNewTestFilm());
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+        filmStorage.addLike(film.getId(), user.getId());
+
+        assertThat(filmService.removeLike(film.getId(), user.getId()).getLikes()).isEmpty();
+        queue.flush();
+
+        assertThat(filmStorage.getFilm(film.getId()).getLikes()).isEmpty();
+        assertThat(storedLikeCount(film.getId())).isZero();
+    }
+
+    @Test
+    public void testRepeatedLikeShouldBeRejected() {
+        LikeWriteBehindQueue queue = newQueue(100, 10);
+        FilmService filmService = newFilmService(queue);
+        Film film = filmStorage.addFilm(FilmDbStorageTest.createNewTestFilm());
+        User user = userStorage.addUser(UserDbStorageTest.createNewTestUser());
+
+        filmService.addLike(film.getId(), user.getId());
+
+        assertThatThrownBy(() -> filmService.addLike(film.getId(), user.getId()))
+                .isInstanceOf(DuplicateKeyException.class);
+        queue.flush();
+        assertThatThrownBy(() -> filmService.addLike(film.getId(), user.getId()))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    public void testFullQueueShouldBeFlushedByCaller() {
+        LikeWriteBehindQueue queue = newQueue(2, 10);
+        FilmService filmService = newFilmService(queue);
+        Film film = filmStorage.addFilm(FilmDbStorageTest.createNewTestFilm());
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            userIds.add(userStorage.addUser(UserDbStorageTest.createNewTestUser()).getId());
+        }
+
+        userIds.forEach(userId -> filmService.addLike(film.getId(), userId));
+
+        assertThat(queue.getPendingCount()).isEqualTo(1);
+        assertThat(filmStorage.getFilm(film.getId()).getLikes()).containsExactlyElementsOf(userIds.subList(0, 2));
+    }
+
+    @Test
+    public void testFlushShouldWriteInBatchesAndKeepPopularityOrder() throws Exception {
+        LikeWriteBehindQueue queue = newQueue(10_000, 7);
+        FilmService filmService = newFilmService(queue);
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            filmIds.add(filmStorage.addFilm(FilmDbStorageTest.createNewTestFilm()).getId());
+        }
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            userIds.add(userStorage.addUser(UserDbStorageTest.createNewTestUser()).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int f = 0; f < filmIds.size(); f++) {
+            int filmId = filmIds.get(f);
+            for (int userId : userIds.subList(0, (f + 1) * 4)) {
+                futures.add(executor.submit(() -> queue.enqueue(filmId, userId, true, false)));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        queue.flush();
+
+        assertThat(queue.getPendingCount()).isZero();
+        for (int f = 0; f < filmIds.size(); f++) {
+            assertThat(filmStorage.getFilm(filmIds.get(f)).getLikes()).hasSize((f + 1) * 4);
+            assertThat(storedLikeCount(filmIds.get(f))).isEqualTo((f + 1) * 4);
+        }
+        filmService.rebuildPopularityIndex();
+        assertThat(filmService.getPopularFilms(1, DESCENDING_ORDER).get(0).getId()).isEqualTo(filmIds.get(4));
+    }
+
+    @Test
+    public void testUnlikeDuringFlushShouldStayQueued() throws Exception {
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryFilmStorage films = new InMemoryFilmStorage(users) {
+            @Override
+            public void applyLikes(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.applyLikes(added, removed);
+            }
+        };
+        LikeWriteBehindQueue queue = new LikeWriteBehindQueue(films, true, 100, 10, Duration.ofSeconds(1));
+        int filmId = films.addFilm(FilmDbStorageTest.createNewTestFilm()).getId();
+        int userId = users.addUser(UserDbStorageTest.createNewTestUser()).getId();
+        queue.enqueue(filmId, userId, true, false);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> flush = executor.submit(queue::flush);
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.enqueue(filmId, userId, false, false)).isTrue();
+        release.countDown();
+        flush.get();
+        executor.shutdown();
+
+        assertThat(queue.getPendingCount()).isEqualTo(1);
+        assertThat(films.getFilm(filmId).getLikes()).containsExactly(userId);
+        queue.flush();
+        assertThat(queue.getPendingCount()).isZero();
+        assertThat(films.getFilm(filmId).getLikes()).isEmpty();
+    }
+
+    @Test
+    public void testRejectedLikeShouldBeReportedAsDropped() {
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        InMemoryFilmStorage films = new InMemoryFilmStorage(users);
+        LikeWriteBehindQueue queue = new LikeWriteBehindQueue(films, true, 100, 10, Duration.ofSeconds(1));
+        List<String> dropped = new ArrayList<>();
+        queue.setDroppedLikeListener((filmId, userId, liked) -> dropped.add(filmId + ":" + userId + ":" + liked));
+        int filmId = films.addFilm(FilmDbStorageTest.createNewTestFilm()).getId();
+        int userId = users.addUser(UserDbStorageTest.createNewTestUser()).getId();
+        queue.enqueue(filmId, userId, true, false);
+        queue.enqueue(9999, userId, true, false);
+
+        queue.flush();
+
+        assertThat(queue.getPendingCount()).isZero();
+        assertThat(dropped).containsExactly("9999:" + userId + ":true");
+        assertThat(films.getFilm(filmId).getLikes()).containsExactly(userId);
+    }
+}
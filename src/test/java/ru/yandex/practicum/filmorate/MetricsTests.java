@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTests {
+
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static final HttpResponse.BodyHandler<String> responseHandler = HttpResponse.BodyHandlers.ofString();
+    private static ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void setupContext() {
+        context = SpringApplication.run(FilmorateApplication.class);
+    }
+
+    @AfterEach
+    void exitContext() {
+        context.close();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080" + path))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        return httpClient.send(request, responseHandler);
+    }
+
+    @Test
+    void shouldExposeTimersPoolAndCacheMetricsInPrometheusFormat() throws IOException, InterruptedException {
+        assertEquals(200, get("/films").statusCode());
+        assertEquals(200, get("/genres").statusCode());
+        assertEquals(200, get("/genres").statusCode());
+
+        HttpResponse<String> response = get("/actuator/prometheus");
+        assertEquals(200, response.statusCode());
+        String metrics = response.body();
+
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("uri=\"/films\""));
+        assertTrue(metrics.contains("filmorate_storage_seconds_bucket{class=\"FilmDbStorage\",exception=\"none\",method=\"getFilms\""));
+        assertTrue(metrics.contains("filmorate_storage_seconds{class=\"FilmDbStorage\",exception=\"none\",method=\"getFilms\",quantile=\"0.99\""));
+        assertTrue(metrics.contains("filmorate_service_seconds_count{class=\"FilmService\",exception=\"none\",method=\"getFilms\""));
+        assertTrue(metrics.contains("hikaricp_connections_active"));
+        assertTrue(metrics.contains("cache_gets_total{cache=\"allGenres\",result=\"hit\""));
+    }
+
+    @Test
+    void shouldTagFailedStorageCallsWithException() throws IOException, InterruptedException {
+        assertEquals(404, get("/films/999").statusCode());
+
+        String metrics = get("/actuator/prometheus").body();
+        assertTrue(metrics.contains("filmorate_storage_seconds_count{class=\"FilmDbStorage\",exception=\"FilmNotFoundException\",method=\"getFilm\""));
+    }
+}
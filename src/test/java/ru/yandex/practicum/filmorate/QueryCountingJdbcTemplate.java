@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JdbcTemplate, считающий выполненные запросы (созданные Statement), чтобы тесты могли ловить N+1.
+ */
+public class QueryCountingJdbcTemplate extends JdbcTemplate {
+    private final AtomicInteger queryCount = new AtomicInteger();
+
+    public QueryCountingJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate.getDataSource());
+    }
+
+    public int getQueryCount() {
+        return queryCount.get();
+    }
+
+    public void reset() {
+        queryCount.set(0);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        queryCount.incrementAndGet();
+        super.applyStatementSettings(stmt);
+    }
+
+    @Override
+    public <T> T execute(ConnectionCallback<T> action) {
+        return super.execute((ConnectionCallback<T>) connection -> action.doInConnection(countingProxy(connection)));
+    }
+
+    private Connection countingProxy(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                        queryCount.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.storage.DbConstants.*;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testPopularFilmsShouldBeReadFromLikeCountIndex() {
+        assertThat(explain(SQL_SELECT_POPULAR_FILMS_DESC, 10))
+                .contains("films_like_count_desc_idx")
+                .contains("index sorted");
+        assertThat(explain(SQL_SELECT_POPULAR_FILMS_ASC, 10))
+                .contains("films_like_count_asc_idx")
+                .contains("index sorted");
+    }
+
+    @Test
+    public void testFilmPagesShouldBeReadFromPrimaryKey() {
+        assertThat(explain(SQL_SELECT_FILMS_PAGE, 0, 100))
+                .doesNotContain("tableScan")
+                .contains("index sorted");
+        assertThat(explain(SQL_SELECT_FILM_BY_ID, 1)).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void testFilmLikesAndGenresShouldUseIndexes() {
+        assertThat(explain(String.format(SQL_SELECT_LIKES_BY_FILM_IDS, "?, ?"), 1, 2))
+                .doesNotContain("tableScan");
+        assertThat(explain(String.format(SQL_SELECT_FILM_GENRES_BY_FILM_IDS, "?, ?"), 1, 2))
+                .doesNotContain("tableScan");
+        assertThat(explain(SQL_DELETE_FILM_GENRES_BY_FILM_ID, 1))
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    public void testUserPagesShouldBeReadFromPrimaryKey() {
+        assertThat(explain(SQL_SELECT_USERS_PAGE, 0, 100))
+                .doesNotContain("tableScan")
+                .contains("index sorted");
+        assertThat(explain(SQL_SELECT_USER_BY_ID, 1)).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void testFriendQueriesShouldUseFriendIdIndex() {
+        assertThat(explain(String.format(SQL_SELECT_FRIEND_EDGES_BY_USER_IDS, "?, ?"), 1, 2, 1, 2))
+                .doesNotContain("tableScan")
+                .contains("friends_friend_id_idx");
+        assertThat(explain(SQL_SELECT_USER_FRIENDS, 1, 1))
+                .doesNotContain("tableScan")
+                .contains("friends_friend_id_idx");
+        assertThat(explain(SQL_SELECT_COMMON_FRIENDS, 1, 1, 2, 2))
+                .doesNotContain("tableScan")
+                .contains("friends_friend_id_idx");
+    }
+
+    private String explain(String sql, Object... args) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.practicum.filmorate.metrics.QueryStatsFilter.QUERY_COUNT_HEADER;
+import static ru.yandex.practicum.filmorate.metrics.QueryStatsFilter.QUERY_TIME_HEADER;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class QueryStatsTests {
+
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static final HttpResponse.BodyHandler<String> responseHandler = HttpResponse.BodyHandlers.ofString();
+    private static ConfigurableApplicationContext context;
+
+    @AfterEach
+    void exitContext() {
+        context.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String json) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher body = json == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(json);
+        HttpRequest request = HttpRequest.newBuilder()
+                .method(method, body)
+                .uri(URI.create("http://localhost:8080" + path))
+                .header("Content-Type", "application/json")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        return httpClient.send(request, responseHandler);
+    }
+
+    private void createUsers(int fromId, int toId) throws IOException, InterruptedException {
+        for (int i = fromId; i <= toId; i++) {
+            assertEquals(200, send("POST", "/users", "{\"email\":\"user" + i + "@mail.ru\",\"login\":\"user" + i
+                    + "\",\"birthday\":\"1990-01-01\"}").statusCode());
+            if (i > 1) {
+                assertEquals(200, send("PUT", "/users/1/friends/" + i, null).statusCode());
+            }
+        }
+    }
+
+    private void createFilms(int fromId, int toId, int users) throws IOException, InterruptedException {
+        for (int i = fromId; i <= toId; i++) {
+            assertEquals(200, send("POST", "/films", "{\"name\":\"film" + i + "\",\"description\":\"d\","
+                    + "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1},"
+                    + "\"genres\":[{\"id\":1},{\"id\":2}]}").statusCode());
+            for (int userId = 1; userId <= users; userId++) {
+                assertEquals(200, send("PUT", "/films/" + i + "/like/" + userId, null).statusCode());
+            }
+        }
+    }
+
+    private int queryCount(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = send("GET", path, null);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue(QUERY_TIME_HEADER).isPresent());
+        return Integer.parseInt(response.headers().firstValue(QUERY_COUNT_HEADER).orElseThrow());
+    }
+
+    @Test
+    void shouldKeepQueryCountPerEndpointIndependentOfSize() throws IOException, InterruptedException {
+        context = SpringApplication.run(FilmorateApplication.class);
+        createUsers(1, 2);
+        createFilms(1, 2, 2);
+        queryCount("/films"); // прогрев кэша жанров и рейтингов
+        int filmsQueries = queryCount("/films");
+        int usersQueries = queryCount("/users");
+        int popularQueries = queryCount("/films/popular?size=5");
+
+        createUsers(3, 10);
+        createFilms(3, 20, 10);
+
+        assertTrue(queryCount("/films") <= 4);
+        assertEquals(filmsQueries, queryCount("/films"));
+        assertTrue(queryCount("/users") <= 2);
+        assertEquals(usersQueries, queryCount("/users"));
+        assertTrue(queryCount("/films/popular?size=5") <= 4);
+        assertEquals(popularQueries, queryCount("/films/popular?size=5"));
+        assertTrue(queryCount("/users/1/friends") <= 4);
+    }
+
+    @Test
+    void shouldLogSlowQueriesWithParameters(CapturedOutput output) throws IOException, InterruptedException {
+        // без фильтра id запрос несуществующего фильма доходит до базы
+        context = SpringApplication.run(FilmorateApplication.class, "--filmorate.jdbc.slow-query-threshold=0ms",
+                "--filmorate.id-filter.enabled=false");
+        send("GET", "/films/4242", null);
+
+        assertTrue(output.getOut().contains("[4242]"));
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.SortedIntSet;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedIntSetTest {
+
+    @Test
+    public void testShouldKeepValuesSortedAndUnique() {
+        SortedIntSet set = new SortedIntSet();
+
+        assertThat(set.add(5)).isTrue();
+        assertThat(set.add(1)).isTrue();
+        assertThat(set.add(9)).isTrue();
+        assertThat(set.add(5)).isFalse();
+        assertThat(set.add(3)).isTrue();
+
+        assertThat(set).containsExactly(1, 3, 5, 9);
+        assertThat(set.contains(3)).isTrue();
+        assertThat(set.contains((Object) 4)).isFalse();
+        assertThat(set.contains("3")).isFalse();
+    }
+
+    @Test
+    public void testShouldRemoveValues() {
+        SortedIntSet set = SortedIntSet.copyOf(List.of(4, 2, 8, 6));
+
+        assertThat(set.remove(2)).isTrue();
+        assertThat(set.remove((Object) 7)).isFalse();
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == 6) {
+                iterator.remove();
+            }
+        }
+
+        assertThat(set).containsExactly(4, 8);
+        assertThat(set.toIntArray()).containsExactly(4, 8);
+    }
+
+    @Test
+    public void testShouldBeEqualToHashSetWithSameValues() {
+        Set<Integer> values = new HashSet<>(List.of(10, 3, 7, 3));
+        SortedIntSet set = SortedIntSet.copyOf(values);
+
+        assertThat(set).isEqualTo(values).hasSize(3);
+        assertThat(values).isEqualTo(set);
+        assertThat(set.hashCode()).isEqualTo(values.hashCode());
+    }
+
+    @Test
+    public void testFilmLikesShouldSerializeToSameJsonArray() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Film film = FilmDbStorageTest.createNewTestFilm();
+        film.getLikes().add(3);
+        film.getLikes().add(1);
+
+        String json = objectMapper.writeValueAsString(film);
+        Film restored = objectMapper.readValue(json, Film.class);
+
+        assertThat(json).contains("\"likes\":[1,3]");
+        assertThat(restored.getLikes()).isInstanceOf(SortedIntSet.class).containsExactly(1, 3);
+    }
+}
@@ -85,6 +85,36 @@ public class UserControllerTests {
         assertEquals(jsonExpected, response.body());
     }
 
+    @Test
+    void shouldReturnUsersPageAndNdjsonStream() throws IOException, InterruptedException {
+        shouldCreateUserTest();
+        String user = "{" +
+                "\"id\":1," +
+                "\"email\":\"mail@mail.ru\"," +
+                "\"login\":\"dolore\"," +
+                "\"name\":\"Nick Name\"," +
+                "\"birthday\":\"1946-08-20\"," +
+                "\"friends\":[]" +
+                "}";
+        HttpResponse<String> page = httpClient.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/users?after=0&limit=10"))
+                .header("Accept", "application/json")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build(), responseHandler);
+        assertEquals(200, page.statusCode());
+        assertEquals("[" + user + "]", page.body());
+
+        HttpResponse<String> stream = httpClient.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/users"))
+                .header("Accept", "application/x-ndjson")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build(), responseHandler);
+        assertEquals(200, stream.statusCode());
+        assertEquals(user + "\n", stream.body());
+    }
+
     @Test
     void shouldGet400CodeWithNoPOSTRequestBody() throws IOException, InterruptedException {
         String jsonSent = "";
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDbStorageCachedTest extends UserDbStorageTest {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserDbStorageCachedTest(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    protected EntityCache<User> newEntityCache() {
+        return new EntityCache<>(true, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testShouldInvalidateBothUsersWhenFriendshipChanges() {
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate, newEntityCache());
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+        userStorage.getUser(user1.getId());
+        userStorage.getUser(user2.getId());
+
+        userStorage.addFriend(user1.getId(), user2.getId());
+        assertThat(userStorage.getUser(user1.getId()).getFriends()).isEqualTo(Set.of(user2.getId()));
+        assertThat(userStorage.getUser(user2.getId()).getFriends()).isEmpty();
+
+        userStorage.approveFriend(user1.getId(), user2.getId());
+        assertThat(userStorage.getUser(user2.getId()).getFriends()).isEqualTo(Set.of(user1.getId()));
+
+        userStorage.removeFriend(user1.getId(), user2.getId());
+        assertThat(userStorage.getUser(user1.getId()).getFriends()).isEmpty();
+        assertThat(userStorage.getUser(user2.getId()).getFriends()).isEmpty();
+    }
+}
@@ -9,17 +9,22 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.Exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.storage.DbConstants.SQL_SELECT_ALL_USERS;
 import static ru.yandex.practicum.filmorate.storage.DbConstants.SQL_SELECT_USER_BY_ID;
 import static ru.yandex.practicum.filmorate.storage.DbConstants.SQL_SELECT_USER_FRIENDS_IDS;
 
@@ -29,7 +34,7 @@ import static ru.yandex.practicum.filmorate.storage.DbConstants.SQL_SELECT_USER_
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class UserDbStorageTest {
     private final JdbcTemplate jdbcTemplate;
-    private UserDbStorage userStorage;
+    protected UserStorage userStorage;
 
     public static User createNewTestUser() {
         User newUser = new User();
@@ -42,7 +47,15 @@ class UserDbStorageTest {
 
     @BeforeEach
     public void initUserStorage() {
-        userStorage = new UserDbStorage(jdbcTemplate);
+        userStorage = newUserStorage();
+    }
+
+    protected UserStorage newUserStorage() {
+        return new UserDbStorage(jdbcTemplate, newEntityCache());
+    }
+
+    protected EntityCache<User> newEntityCache() {
+        return EntityCache.disabled();
     }
 
     @Test
@@ -64,6 +77,20 @@ class UserDbStorageTest {
                 .isEqualTo(newUser);
     }
 
+    @Test
+    public void testShouldAddUsersInBatch() {
+        User user1 = createNewTestUser();
+        User user2 = createNewTestUser();
+        user2.setLogin("petya");
+
+        List<Integer> ids = userStorage.addUsers(List.of(user1, user2));
+
+        assertThat(ids).containsExactly(user1.getId(), user2.getId());
+        assertThat(userStorage.getUser(user2.getId()))
+                .usingRecursiveComparison()
+                .isEqualTo(user2);
+    }
+
     @Test
     public void testGetUserShouldReturnUserByCorrectId() {
         User newUser = userStorage.addUser(createNewTestUser());
@@ -81,6 +108,18 @@ class UserDbStorageTest {
         Assertions.assertThrows(UserNotFoundException.class, () -> userStorage.getUser(1000));
     }
 
+    @Test
+    public void testShouldCheckUserExistence() {
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+
+        assertThat(userStorage.exists(user1.getId())).isTrue();
+        assertThat(userStorage.exists(1000)).isFalse();
+        assertThat(userStorage.existsAll(List.of(user1.getId(), user2.getId(), user1.getId()))).isTrue();
+        assertThat(userStorage.existsAll(List.of(user1.getId(), 1000))).isFalse();
+        assertThat(userStorage.existsAll(List.of())).isTrue();
+    }
+
     @Test
     public void testShouldCorrectlyUpdateUserById() {
         User user = userStorage.addUser(createNewTestUser());
@@ -114,13 +153,43 @@ class UserDbStorageTest {
         assertThat(users).isNotNull().containsAll(List.of(user1, user2, user3));
     }
 
+    @Test
+    public void testShouldReturnUsersPageAfterId() {
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+        User user3 = userStorage.addUser(createNewTestUser());
+
+        assertThat(userStorage.getUsers(0, 2)).containsExactly(user1, user2);
+        assertThat(userStorage.getUsers(user2.getId(), 2)).containsExactly(user3);
+        assertThat(userStorage.getUsers(user3.getId(), 2)).isEmpty();
+    }
+
+    @Test
+    public void testForEachUserShouldStreamSameUsersAsGetUsers() {
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+        User user3 = userStorage.addUser(createNewTestUser());
+        userStorage.addFriend(user1.getId(), user2.getId());
+        userStorage.addFriend(user3.getId(), user1.getId());
+        userStorage.approveFriend(user3.getId(), user1.getId());
+        userStorage.addFriend(user2.getId(), user3.getId());
+
+        List<User> streamed = new ArrayList<>();
+        userStorage.forEachUser(streamed::add);
+
+        assertThat(streamed)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(userStorage.getUsers());
+        assertThat(streamed.get(0).getFriends()).isEqualTo(Set.of(user2.getId(), user3.getId()));
+    }
+
     @Test
     public void testShouldAddFriend() {
         User user1 = userStorage.addUser(createNewTestUser());
         User user2 = userStorage.addUser(createNewTestUser());
 
         userStorage.addFriend(user1.getId(), user2.getId());
-        UserService userService = new UserService(userStorage);
+        UserService userService = new UserService(userStorage, new FriendGraph());
         assertThat(userService.getUserFriends(user1.getId()))
                 .isNotNull()
                 .contains(userStorage.getUser(user2.getId()));
@@ -145,7 +214,7 @@ class UserDbStorageTest {
         User user2 = userStorage.addUser(createNewTestUser());
         userStorage.addFriend(user1.getId(), user2.getId());
         userStorage.removeFriend(user1.getId(), user2.getId());
-        UserService userService = new UserService(userStorage);
+        UserService userService = new UserService(userStorage, new FriendGraph());
         assertThat(userService.getUserFriends(user1.getId()))
                 .isNotNull()
                 .isEmpty();
@@ -161,7 +230,7 @@ class UserDbStorageTest {
 
         userStorage.addFriend(user1.getId(), user2.getId());
         userStorage.approveFriend(user1.getId(), user2.getId());
-        UserService userService = new UserService(userStorage);
+        UserService userService = new UserService(userStorage, new FriendGraph());
         assertThat(userService.getUserFriends(user1.getId()))
                 .isNotNull()
                 .contains(userStorage.getUser(user2.getId()));
@@ -170,6 +239,153 @@ class UserDbStorageTest {
                 .contains(userStorage.getUser(user1.getId()));
     }
 
+    @Test
+    public void testFriendWritesShouldReturnUserAsStored() {
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+        User user3 = userStorage.addUser(createNewTestUser());
+        userStorage.addFriend(user2.getId(), user1.getId());
+        userStorage.approveFriend(user2.getId(), user1.getId());
+        UserService userService = new UserService(userStorage, new FriendGraph());
+        userService.rebuildFriendGraph();
+
+        User added = userService.addFriend(user1.getId(), user3.getId());
+        assertThat(added).usingRecursiveComparison().isEqualTo(userStorage.getUser(user1.getId()));
+        assertThat(added.getFriends()).containsExactly(user2.getId(), user3.getId());
+
+        userService.addFriend(user1.getId(), user2.getId());
+        // user2 stays a friend: their request to user1 is approved
+        User removed = userService.removeFriend(user1.getId(), user2.getId());
+        assertThat(removed).usingRecursiveComparison().isEqualTo(userStorage.getUser(user1.getId()));
+        assertThat(removed.getFriends()).containsExactly(user2.getId(), user3.getId());
+
+        removed = userService.removeFriend(user1.getId(), user3.getId());
+        assertThat(removed).usingRecursiveComparison().isEqualTo(userStorage.getUser(user1.getId()));
+        assertThat(removed.getFriends()).containsExactly(user2.getId());
+    }
+
+    @Test
+    public void testShouldReturnCommonFriends() {
+        User user1 = userStorage.addUser(createNewTestUser());
+        User user2 = userStorage.addUser(createNewTestUser());
+        User common = userStorage.addUser(createNewTestUser());
+        User approved = userStorage.addUser(createNewTestUser());
+        User pending = userStorage.addUser(createNewTestUser());
+
+        userStorage.addFriend(user1.getId(), common.getId());
+        userStorage.addFriend(user2.getId(), common.getId());
+        userStorage.addFriend(user1.getId(), approved.getId());
+        userStorage.addFriend(approved.getId(), user2.getId());
+        userStorage.approveFriend(approved.getId(), user2.getId());
+        userStorage.addFriend(user1.getId(), pending.getId());
+        userStorage.addFriend(pending.getId(), user2.getId());
+
+        UserService userService = new UserService(userStorage, new FriendGraph());
+        assertThat(userStorage.getCommonFriends(user1.getId(), user2.getId()))
+                .extracting(User::getId)
+                .containsExactly(common.getId(), approved.getId());
+        assertThat(userService.getCommonFriends(user2.getId(), user1.getId()))
+                .extracting(User::getId)
+                .containsExactly(common.getId(), approved.getId());
+        assertThat(userStorage.getCommonFriends(user1.getId(), common.getId())).isEmpty();
+    }
+
+    @Test
+    public void testShouldSuggestFriendsOfFriendsByMutualFriendCount() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(userStorage.addUser(createNewTestUser()));
+        }
+        int user = users.get(0).getId();
+        int friend1 = users.get(1).getId();
+        int friend2 = users.get(2).getId();
+        int candidate1 = users.get(3).getId();
+        int candidate2 = users.get(4).getId();
+        userStorage.addFriend(user, friend1);
+        userStorage.addFriend(friend2, user);
+        userStorage.approveFriend(friend2, user);
+        userStorage.addFriend(candidate1, friend1);
+        userStorage.addFriend(candidate1, friend2);
+        userStorage.addFriend(candidate2, friend1);
+        UserService userService = new UserService(userStorage, new FriendGraph());
+        userService.rebuildFriendGraph();
+
+        assertThat(userService.getFriendSuggestions(user, 10))
+                .extracting(User::getId)
+                .containsExactly(candidate1, candidate2);
+        assertThat(userService.getCommonFriends(user, candidate1)).hasSize(2);
+
+        userService.removeFriend(candidate1, friend2);
+        userService.addFriend(friend1, candidate2);
+        userService.approveFriend(candidate2, friend1);
+        assertThat(userService.getFriendSuggestions(user, 10))
+                .extracting(User::getId)
+                .containsExactly(candidate1, candidate2);
+        userService.addFriend(user, candidate1);
+        assertThat(userService.getFriendSuggestions(user, 10))
+                .extracting(User::getId)
+                .containsExactly(candidate2);
+    }
+
+    @Test
+    public void testIdFilterShouldRejectUnknownUserWithoutQuery() {
+        User stored = new UserDbStorage(jdbcTemplate, EntityCache.disabled()).addUser(createNewTestUser());
+        QueryCountingJdbcTemplate countingJdbcTemplate = new QueryCountingJdbcTemplate(jdbcTemplate);
+        UserDbStorage filteredStorage = new UserDbStorage(countingJdbcTemplate, newEntityCache(), true);
+        filteredStorage.loadIds();
+        User added = filteredStorage.addUser(createNewTestUser());
+
+        countingJdbcTemplate.reset();
+        UserNotFoundException exception = Assertions.assertThrows(UserNotFoundException.class,
+                () -> filteredStorage.getUser(added.getId() + 1));
+        assertThat(exception.getStackTrace()).isEmpty();
+        assertThat(filteredStorage.existsAll(List.of(stored.getId(), added.getId() + 1))).isFalse();
+        assertThat(countingJdbcTemplate.getQueryCount()).isZero();
+
+        assertThat(filteredStorage.getUser(stored.getId()).getId()).isEqualTo(stored.getId());
+        assertThat(filteredStorage.exists(added.getId())).isTrue();
+    }
+
+    @Test
+    public void testShouldLoadUsersWithFriendsWithoutQueryPerUser() {
+        QueryCountingJdbcTemplate countingJdbcTemplate = new QueryCountingJdbcTemplate(jdbcTemplate);
+        UserDbStorage countingStorage = new UserDbStorage(countingJdbcTemplate, newEntityCache());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(countingStorage.addUser(createNewTestUser()));
+        }
+        User user = users.get(0);
+        for (int i = 1; i < users.size(); i++) {
+            countingStorage.addFriend(user.getId(), users.get(i).getId());
+            countingStorage.addFriend(users.get(i).getId(), users.get((i % 4) + 1).getId());
+        }
+        countingStorage.approveFriend(users.get(1).getId(), users.get(2).getId());
+
+        countingJdbcTemplate.reset();
+        List<User> allUsers = countingStorage.getUsers();
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+        assertThat(allUsers)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(jdbcTemplate.query(SQL_SELECT_ALL_USERS, this::mapUser));
+
+        countingJdbcTemplate.reset();
+        assertThat(countingStorage.getUserFriends(user.getId())).hasSize(4);
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+
+        countingJdbcTemplate.reset();
+        countingStorage.getUsers(0, 3);
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+
+        countingJdbcTemplate.reset();
+        assertThat(countingStorage.getCommonFriends(user.getId(), users.get(1).getId())).hasSize(1);
+        assertThat(countingJdbcTemplate.getQueryCount()).isEqualTo(2);
+
+        countingJdbcTemplate.reset();
+        new UserService(countingStorage, new FriendGraph()).getUserFriends(user.getId());
+        // the existence check is at most one query, or none when the user is cached
+        assertThat(countingJdbcTemplate.getQueryCount()).isLessThanOrEqualTo(3);
+    }
+
     private User mapUser(ResultSet rs, int rowNumber) throws SQLException {
         User user = new User();
         user.setId(rs.getInt("id"));